@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Film film(long index) {
+        return new Film(null, "Фильм " + index, "Описание фильма номер " + index,
+                LocalDate.of(1950, 1, 1).plusDays(index % 25_000), 90 + (int) (index % 90));
+    }
+
+    static User user(long index) {
+        return new User(null, "user" + index + "@mail.ru", "login" + index, "Пользователь " + index,
+                LocalDate.of(1970, 1, 1).plusDays(index % 15_000));
+    }
+}
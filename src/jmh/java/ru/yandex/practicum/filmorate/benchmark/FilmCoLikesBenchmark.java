@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmCoLikes;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации фильмов по совместным лайкам: 1 млн пользователей, 100 тыс. фильмов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmCoLikesBenchmark {
+
+    private static final int USERS = 1_000_000;
+    private static final int FILMS = 100_000;
+    private static final int REGULAR_LIKES = 10;
+    private static final int HEAVY_LIKES = 500;
+    private static final int LIMIT = 10;
+
+    private InMemoryFilmStorage storage;
+    private FilmCoLikes coLikes;
+    private long regular;
+    private long heavy;
+    private long filmToToggle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < FILMS; i++) {
+            storage.addFilm(BenchmarkData.film(i));
+        }
+        coLikes = new FilmCoLikes(storage, 64);
+        SplittableRandom random = new SplittableRandom(42);
+        long likes = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            // в среднем 10 лайков, популярность фильмов убывает степенным образом
+            int count = 1 + (int) (-9 * Math.log(1 - random.nextDouble()));
+            for (int i = 0; i < count; i++) {
+                storage.addLike(popularFilm(random), userId);
+            }
+            likes += count;
+            // обычный пользователь — первый после середины со средним числом лайков
+            if (regular == 0 && userId > USERS / 2 && count == REGULAR_LIKES) {
+                regular = userId;
+            }
+        }
+        heavy = USERS + 1;
+        for (int i = 0; i < HEAVY_LIKES; i++) {
+            storage.addLike(popularFilm(random), heavy);
+        }
+        filmToToggle = FILMS / 2;
+        long start = System.nanoTime();
+        coLikes.build();
+        System.out.printf("%nлайков %d, построено за %d мс%n", likes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long popularFilm(SplittableRandom random) {
+        return 1 + (long) (FILMS * Math.pow(random.nextDouble(), 3));
+    }
+
+    @Benchmark
+    public LongIntTopK regular() {
+        return coLikes.recommend(regular, LIMIT);
+    }
+
+    @Benchmark
+    public LongIntTopK heavy() {
+        return coLikes.recommend(heavy, LIMIT);
+    }
+
+    // Лайк и его снятие у обычного пользователя: обновляются пары со всеми его фильмами.
+    // Вместе с ними измеряется запись лайка в хранилище
+    @Benchmark
+    public void likeAndUnlike() {
+        storage.addLike(filmToToggle, regular);
+        coLikes.likeChanged(filmToToggle, regular, true);
+        storage.removeLike(filmToToggle, regular);
+        coLikes.likeChanged(filmToToggle, regular, false);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmCoLikes;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmTrends;
+import ru.yandex.practicum.filmorate.service.LikeWriter;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class FilmServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int LIKES_PER_FILM = 5;
+
+    @Param({"1000", "100000", "1000000"})
+    private int films;
+
+    private FilmService filmService;
+    private long operation;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        FilmCoLikes coLikes = new FilmCoLikes(filmStorage, 64);
+        ChangeFeed changes = new ChangeFeed(Clock.systemUTC(), 1024);
+        UserService userService = new UserService(userStorage, new EntityVersions(), coLikes, changes);
+        filmService = new FilmService(filmStorage, userService, new EntityVersions(), coLikes,
+                new FilmTrends(Clock.systemUTC(), Duration.ofDays(1), Duration.ofSeconds(1)), changes,
+                new LikeWriter(filmStorage, LikeWriter.SYNC, 1));
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(BenchmarkData.user(i));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        // начальные лайки от пользователей вне диапазона, с которым работает likeFilm
+        for (int i = 0; i < films; i++) {
+            Film film = BenchmarkData.film(i);
+            int likes = random.nextInt(LIKES_PER_FILM * 2);
+            for (int like = 0; like < likes; like++) {
+                film.getUsersLikes().add(USERS + 1L + random.nextInt(1_000_000));
+            }
+            filmService.createFilm(film);
+        }
+        coLikes.build();
+    }
+
+    // Чередует лайк и его снятие, чтобы бесконечно не упираться в «уже лайкал»
+    @Benchmark
+    public void likeFilm() {
+        long combos = (long) films * USERS;
+        long current = operation++;
+        long combo = current % combos;
+        long filmId = combo % films + 1;
+        long userId = combo / films + 1;
+        if ((current / combos) % 2 == 0) {
+            filmService.likeFilm(filmId, userId);
+        } else {
+            filmService.removeLikeFilm(filmId, userId);
+        }
+    }
+
+    @Benchmark
+    public Collection<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmStorageBenchmark {
+
+    private static final LocalDate YEAR_START = LocalDate.of(1990, 1, 1);
+    private static final LocalDate YEAR_END = LocalDate.of(1990, 12, 31);
+    private static final int PAGE = 100;
+
+    @Param({"1000", "100000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.addFilm(BenchmarkData.film(i));
+        }
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return storage.addFilm(BenchmarkData.film(films));
+    }
+
+    @Benchmark
+    public Optional<Film> getFilm() {
+        return storage.getFilm(ThreadLocalRandom.current().nextLong(1, films + 1));
+    }
+
+    // Фильмы одного года по индексу дат выхода; в BenchmarkData даты идут по кругу за 68 лет
+    @Benchmark
+    public Collection<Film> releasedInYear() {
+        return storage.getFilmsReleasedBetween(YEAR_START, YEAR_END, false, PAGE);
+    }
+
+    @Benchmark
+    public Collection<Film> releasedInYearPopular() {
+        return storage.getFilmsReleasedBetween(YEAR_START, YEAR_END, true, PAGE);
+    }
+
+    // Для сравнения: тот же запрос полным просмотром getFilms()
+    @Benchmark
+    public List<Film> releasedInYearByScan() {
+        return storage.getFilms().stream()
+                .filter(film -> !film.getReleaseDate().isBefore(YEAR_START) && !film.getReleaseDate().isAfter(YEAR_END))
+                .sorted(Comparator.comparing(Film::getReleaseDate).thenComparing(Film::getId))
+                .limit(PAGE)
+                .toList();
+    }
+}
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Пропускная способность веб-слоя с фильтром Logbook: прежняя синхронная запись против выборочной асинхронной
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class HttpLogBenchmark {
+
+    private static final int FILMS = 100;
+
+    // off - без фильтра Logbook, верхняя граница для сравнения
+    @Param({"off", "sync", "sampled"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Filter logbookFilter;
+    private FilterChain writeFilms;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // аргументами командной строки, чтобы перекрыть application.properties
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--logging.config=classpath:logback-http-benchmark.xml",
+                        "--filmorate.http-log.mode=" + ("sync".equals(mode) ? "sync" : "sampled"),
+                        // в режиме sync тела не обрезаются, как было до появления настройки
+                        "--logbook.write.max-body-size=" + ("sync".equals(mode) ? -1 : 2048));
+        FilmService filmService = context.getBean(FilmService.class);
+        for (int i = 0; i < FILMS; i++) {
+            filmService.createFilm(BenchmarkData.film(i));
+        }
+        logbookFilter = context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                .map(FilterRegistrationBean::getFilter)
+                .filter(LogbookFilter.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context);
+        if (!"off".equals(mode)) {
+            builder.addFilters(logbookFilter);
+        }
+        mockMvc = builder.build();
+
+        byte[] films = mockMvc.perform(get("/films")).andReturn().getResponse().getContentAsByteArray();
+        writeFilms = (request, response) -> {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(films);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getFilms() throws Exception {
+        return mockMvc.perform(get("/films")).andReturn().getResponse().getStatus();
+    }
+
+    // Только фильтр Logbook вокруг готового ответа /films, без Spring MVC и сериализации
+    @Benchmark
+    public int filterOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films");
+        BufferedResponse response = new BufferedResponse(new MockHttpServletResponse());
+        if ("off".equals(mode)) {
+            writeFilms.doFilter(request, response);
+        } else {
+            logbookFilter.doFilter(request, response, writeFilms);
+        }
+        return response.size();
+    }
+
+    // 404 пишется в лог в обоих режимах
+    @Benchmark
+    public int getMissingFilm() throws Exception {
+        return mockMvc.perform(get("/films/{id}", 1_000_000)).andReturn().getResponse().getStatus();
+    }
+
+    // MockHttpServletResponse пишет тело по байту, что на большом ответе перекрывает стоимость самого логирования
+    private static final class BufferedResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream(32 * 1024);
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                content.write(bytes, offset, length);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        BufferedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        int size() {
+            return content.size();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.util.LongIntersection;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+// Сравнение движка пересечений с прежним подходом: стрим по одному HashSet и contains по другому
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+
+    @Param({"skewed", "equal"})
+    private String shape;
+
+    private long[] first;
+    private long[] second;
+    private Set<Long> firstSet;
+    private Set<Long> secondSet;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int firstSize = shape.equals("skewed") ? 100 : 100_000;
+        first = random.longs(firstSize * 2L, 1, 1_000_000).distinct().limit(firstSize).sorted().toArray();
+        second = random.longs(200_000, 1, 1_000_000).distinct().limit(100_000).sorted().toArray();
+        firstSet = LongStream.of(first).boxed().collect(Collectors.toCollection(HashSet::new));
+        secondSet = LongStream.of(second).boxed().collect(Collectors.toCollection(HashSet::new));
+    }
+
+    @Benchmark
+    public long[] engine() {
+        return LongIntersection.intersect(first, second);
+    }
+
+    @Benchmark
+    public List<Long> hashSetStream() {
+        return firstSet.stream().filter(secondSet::contains).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.LikeWriter;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Лайки одному горячему фильму из 16 потоков: запись в потоке запроса против пачек LikeWriter, с журналом и без
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(16)
+public class LikeIngestionBenchmark {
+
+    // пользователи потока по очереди ставят лайки, затем снимают их, чтобы фильм не разрастался
+    private static final int USERS_PER_THREAD = 4096;
+    private static final AtomicLong NEXT_USER = new AtomicLong();
+
+    @Param({LikeWriter.SYNC, LikeWriter.BATCHED})
+    private String mode;
+
+    @Param({"false", "true"})
+    private boolean wal;
+
+    private Path dir;
+    private WriteAheadLog log;
+    private LikeWriter writer;
+    private long filmId;
+
+    @Setup
+    public void setUp() throws IOException {
+        InMemoryFilmStorage storage;
+        if (wal) {
+            dir = Files.createTempDirectory("filmorate-likes");
+            log = new WriteAheadLog(dir.resolve("filmorate.wal"));
+            log.replay(record -> {
+            });
+            storage = new InMemoryFilmStorage(log);
+        } else {
+            storage = new InMemoryFilmStorage();
+        }
+        filmId = storage.addFilm(new Film(null, "Премьера", "Описание", LocalDate.of(2024, 1, 1), 120)).getId();
+        writer = new LikeWriter(storage, mode, 4);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        writer.destroy();
+        if (log != null) {
+            log.close();
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Liker {
+
+        private long firstUser;
+        private long step;
+
+        @Setup
+        public void setUp() {
+            firstUser = NEXT_USER.getAndAdd(USERS_PER_THREAD) + 1;
+        }
+    }
+
+    @Benchmark
+    public boolean like(Liker liker) {
+        long step = liker.step++;
+        long userId = liker.firstUser + step % USERS_PER_THREAD;
+        return (step / USERS_PER_THREAD) % 2 == 0 ? writer.addLike(filmId, userId) : writer.removeLike(filmId, userId);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузка по настоящему HTTP на Tomcat: потоки платформы из пула против виртуального потока на запрос.
+// Смесь запросов: 60% GET /films/{id}, 20% GET /users/{id}/friends, 20% постановка и снятие лайка.
+// Журнал включён, поэтому запись ждёт fsync и держит поток запроса. Клиентских потоков больше, чем потоков
+// в пуле Tomcat по умолчанию (200), так что в режиме platform запросы встают в очередь
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(256)
+@Fork(1)
+public class LoadBenchmark {
+
+    private static final int FILMS = 1_000;
+    private static final int USERS = 1_000;
+    private static final int FRIENDS_PER_USER = 20;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private Path dataDir;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("filmorate-load");
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--logging.config=classpath:logback-http-benchmark.xml",
+                        "--filmorate.wal.enabled=true",
+                        "--filmorate.wal.path=" + dataDir.resolve("filmorate.wal"),
+                        "--filmorate.wal.snapshot-path=" + dataDir.resolve("filmorate.snapshot"));
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(BenchmarkData.user(i));
+        }
+        for (int i = 0; i < FILMS; i++) {
+            filmService.createFilm(BenchmarkData.film(i));
+        }
+        // дружба взаимная: каждый дружит с FRIENDS_PER_USER / 2 следующими и столькими же предыдущими
+        for (long id = 1; id <= USERS; id++) {
+            for (long friendId = id + 1; friendId <= Math.min(id + FRIENDS_PER_USER / 2, USERS); friendId++) {
+                userService.addFriend(id, friendId);
+            }
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir.toFile());
+    }
+
+    @Benchmark
+    public int mixed() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = random.nextLong(1, FILMS + 1);
+        long userId = random.nextLong(1, USERS + 1);
+        int dice = random.nextInt(10);
+        HttpRequest.Builder request;
+        if (dice < 6) {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/films/" + filmId)).GET();
+        } else if (dice < 8) {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId + "/friends")).GET();
+        } else {
+            URI like = URI.create(baseUrl + "/films/" + filmId + "/like/" + userId);
+            request = HttpRequest.newBuilder(like);
+            request = dice == 8 ? request.PUT(HttpRequest.BodyPublishers.noBody()) : request.DELETE();
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
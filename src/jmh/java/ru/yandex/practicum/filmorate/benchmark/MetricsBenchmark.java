@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+import ru.yandex.practicum.filmorate.metrics.MetricsInterceptor;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+import ru.yandex.practicum.filmorate.metrics.ServiceMetricsPostProcessor;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmCoLikes;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+// Накладные расходы метрик: запись в гистограмму, перехватчик запроса и прокси сервиса
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final MetricsInterceptor interceptor = new MetricsInterceptor(new MetricsRegistry());
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private UserService plainService;
+    private UserService measuredService;
+    private long value;
+
+    @Setup
+    public void setUp() {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{userId}");
+        plainService = new UserService(new InMemoryUserStorage(), new EntityVersions(),
+                new FilmCoLikes(new InMemoryFilmStorage(), 64), new ChangeFeed(Clock.systemUTC(), 1024));
+        plainService.createUser(BenchmarkData.user(0));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("metricsRegistry", new MetricsRegistry());
+        measuredService = (UserService) new ServiceMetricsPostProcessor(beanFactory.getBeanProvider(MetricsRegistry.class))
+                .postProcessAfterInitialization(plainService, "userService");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordHistogram() {
+        histogram.record(value++ & 0xFFFFF);
+    }
+
+    // Перехватчик целиком: два чтения атрибутов запроса, поиск метрики и запись
+    @Benchmark
+    public void interceptRequest() {
+        request.removeAttribute("ru.yandex.practicum.filmorate.metrics.MetricsInterceptor.startedAt");
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    @Benchmark
+    public User getUserDirect() {
+        return plainService.getUserById(1L);
+    }
+
+    @Benchmark
+    public User getUserMeasured() {
+        return measuredService.getUserById(1L);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmCoLikes;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации друзей на графе со степенным распределением степеней (предпочтительное присоединение)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecommendationBenchmark {
+
+    private static final int USERS = 200_000;
+    private static final int EDGES_PER_USER = 20;
+    private static final int LIMIT = 10;
+
+    // common - общий ForkJoinPool, 1 - пул из одного потока, то есть тот же алгоритм последовательно
+    @Param({"common", "1"})
+    private String parallelism;
+
+    private InMemoryUserStorage storage;
+    private UserService userService;
+    private ForkJoinPool pool;
+    private long hub;
+    private long regular;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryUserStorage();
+        userService = new UserService(storage, new EntityVersions(),
+                new FilmCoLikes(new InMemoryFilmStorage(), 64), new ChangeFeed(Clock.systemUTC(), 1024));
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(BenchmarkData.user(i));
+        }
+        // каждая связь дважды попадает в endpoints, поэтому случайный элемент выбирает вершину
+        // с вероятностью, пропорциональной её степени
+        SplittableRandom random = new SplittableRandom(42);
+        long[] endpoints = new long[2 * USERS * EDGES_PER_USER];
+        int size = 0;
+        storage.addFriend(1L, 2L);
+        endpoints[size++] = 1;
+        endpoints[size++] = 2;
+        for (long id = 3; id <= USERS; id++) {
+            for (int edge = 0; edge < EDGES_PER_USER; edge++) {
+                long friendId = endpoints[random.nextInt(size)];
+                if (storage.addFriend(id, friendId)) {
+                    endpoints[size++] = id;
+                    endpoints[size++] = friendId;
+                }
+            }
+        }
+        hub = 1;
+        for (long id = 1; id <= USERS; id++) {
+            if (storage.getFriendIds(id).length > storage.getFriendIds(hub).length) {
+                hub = id;
+            }
+        }
+        regular = USERS / 2;
+        long twoHop = 0;
+        for (long friendId : storage.getFriendIds(hub)) {
+            twoHop += storage.getFriendIds(friendId).length;
+        }
+        System.out.printf("%nхаб %d: друзей %d, путей длины 2 %d; обычный пользователь: друзей %d%n",
+                hub, storage.getFriendIds(hub).length, twoHop, storage.getFriendIds(regular).length);
+        pool = "common".equals(parallelism) ? ForkJoinPool.commonPool() : new ForkJoinPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> hub() {
+        return pool.submit(() -> userService.getRecommendations(hub, LIMIT)).join();
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> regular() {
+        return pool.submit(() -> userService.getRecommendations(regular, LIMIT)).join();
+    }
+
+    // Для сравнения: HashMap<Long, Integer> и сортировка всех кандидатов в одном потоке
+    @Benchmark
+    public List<Long> hubBoxedSort() {
+        long[] friends = storage.getFriendIds(hub);
+        Set<Long> excluded = new HashSet<>();
+        excluded.add(hub);
+        for (long friendId : friends) {
+            excluded.add(friendId);
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long friendId : friends) {
+            for (long candidate : storage.getFriendIds(friendId)) {
+                if (!excluded.contains(candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(LIMIT)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Поиск по названию и описанию в каталоге из миллиона фильмов; частоты слов убывают степенным образом
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final int FILMS = 1_000_000;
+    private static final int VOCABULARY = 20_000;
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ле", "ту", "на", "вё", "за", "го", "шу", "де", "ял"};
+    private static final int LIMIT = 20;
+
+    // самое частое слово, слово средней частоты, редкое слово и два слова средней частоты вместе
+    @Param({"0", "300", "10000", "300 500"})
+    private String words;
+
+    @Param({"false", "true"})
+    private boolean boostLikes;
+
+    private InMemoryFilmStorage storage;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = storage.addFilm(new Film(null, text(random, 2), text(random, 15),
+                    LocalDate.of(2000, 1, 1), 100));
+            for (int like = random.nextInt(4); like > 0; like--) {
+                storage.addLike(film.getId(), (long) random.nextInt(1_000_000) + 1);
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        for (String rank : words.split(" ")) {
+            text.append(word(Integer.parseInt(rank))).append(' ');
+        }
+        query = text.toString();
+        int matches = storage.searchFilms(query, FILMS, false).size();
+        System.out.printf("%nзапрос «%s»: найдено %d фильмов%n", query.trim(), matches);
+    }
+
+    @Benchmark
+    public Collection<Film> search() {
+        return storage.searchFilms(query, LIMIT, boostLikes);
+    }
+
+    private static String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(word((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)))).append(' ');
+        }
+        return text.toString();
+    }
+
+    // Псевдослово по номеру: слоги — цифры номера в системе счисления по числу слогов
+    private static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        int value = rank;
+        do {
+            word.append(SYLLABLES[value % SYLLABLES.length]);
+            value /= SYLLABLES.length;
+        } while (value > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.concurrent.TimeUnit;
+
+// Сериализация фильма и пользователя в JSON, Smile и CBOR; размеры тел печатаются при подготовке
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "10000"})
+    private int relations;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private Film film;
+    private User user;
+
+    @Setup
+    public void setUp() throws Exception {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        mapper = new ObjectMapper(factory).registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        film = BenchmarkData.film(1);
+        film.setId(1L);
+        for (long userId = 1; userId <= relations; userId++) {
+            film.getUsersLikes().add(userId * 3);
+        }
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        user = userStorage.addUser(BenchmarkData.user(0));
+        for (int i = 1; i <= relations; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+            userStorage.addFriend(user.getId(), i + 1L);
+        }
+        System.out.printf("%n%s, связей %d: фильм %d байт, пользователь %d байт%n",
+                format, relations, film().length, user().length);
+    }
+
+    @Benchmark
+    public byte[] film() throws Exception {
+        return mapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] user() throws Exception {
+        return mapper.writeValueAsBytes(user);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotStore;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Холодный старт хранилищ с 1 млн пользователей и 10 млн дружб: загрузка снимка против повтора всего журнала
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class StartupBenchmark {
+
+    private static final int USERS = 1_000_000;
+    private static final int EDGES = 10_000_000;
+
+    private Path dir;
+    private Path walPath;
+    private SnapshotStore snapshotStore;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("filmorate-startup");
+        walPath = dir.resolve("filmorate.wal");
+        snapshotStore = new SnapshotStore(dir.resolve("filmorate.snapshot"));
+        try (WriteAheadLog wal = new WriteAheadLog(walPath)) {
+            wal.replay(record -> {
+            });
+            // данные пишутся одним потоком, поэтому fsync делается один раз в конце, а не на каждое изменение
+            MutationLog appendOnly = new MutationLog() {
+                @Override
+                public long append(WalRecord record) {
+                    return wal.append(record);
+                }
+
+                @Override
+                public void awaitDurable(long lsn) {
+                }
+            };
+            InMemoryFilmStorage films = new InMemoryFilmStorage(appendOnly);
+            InMemoryUserStorage users = new InMemoryUserStorage(appendOnly);
+            for (int i = 0; i < USERS; i++) {
+                users.addUser(BenchmarkData.user(i));
+            }
+            SplittableRandom random = new SplittableRandom(42);
+            for (int edges = 0; edges < EDGES; ) {
+                long user = 1 + random.nextInt(USERS);
+                long friend = 1 + random.nextInt(USERS);
+                if (user != friend && users.addFriend(user, friend)) {
+                    edges++;
+                }
+            }
+            wal.awaitDurable(wal.lastLsn());
+            snapshotStore.write(wal.lastLsn(), List.of(films, users));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryUserStorage loadSnapshot() throws IOException {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        long lsn = snapshotStore.load(List.of(films, users)).orElseThrow();
+        replay(lsn, films, users);
+        return users;
+    }
+
+    @Benchmark
+    public InMemoryUserStorage replayLog() throws IOException {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        replay(0, films, users);
+        return users;
+    }
+
+    private void replay(long from, InMemoryFilmStorage films, InMemoryUserStorage users) throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(walPath)) {
+            wal.replay(from, record -> {
+                films.replay(record);
+                users.replay(record);
+            });
+        }
+    }
+}
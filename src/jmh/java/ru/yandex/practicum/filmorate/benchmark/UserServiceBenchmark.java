@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmCoLikes;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class UserServiceBenchmark {
+
+    private static final int USERS = 200_000;
+    private static final long HUB = 1;
+    private static final long OTHER_HUB = 2;
+    private static final long REGULAR = 3;
+
+    private UserService userService;
+    private long operation;
+
+    // Два «хаба» по 100 тысяч друзей (половина общих) и обычный пользователь примерно со 100 друзьями
+    @Setup
+    public void setUp() {
+        userService = new UserService(new InMemoryUserStorage(), new EntityVersions(),
+                new FilmCoLikes(new InMemoryFilmStorage(), 64), new ChangeFeed(Clock.systemUTC(), 1024));
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(BenchmarkData.user(i));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (long friend = 10; friend < 10 + 100_000; friend++) {
+            userService.addFriend(HUB, friend);
+            userService.addFriend(OTHER_HUB, friend + 50_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            try {
+                userService.addFriend(REGULAR, 10L + random.nextInt(150_000));
+            } catch (RuntimeException e) {
+                // случайный повтор — просто пропускаем
+            }
+        }
+    }
+
+    // Чередует добавление и удаление дружбы между пользователями вне заранее построенных связей
+    @Benchmark
+    public void addFriend() {
+        long current = operation++;
+        long pairs = 10_000;
+        long userId = 160_000 + current % pairs;
+        long friendId = userId + 20_000;
+        if ((current / pairs) % 2 == 0) {
+            userService.addFriend(userId, friendId);
+        } else {
+            userService.removeFriend(userId, friendId);
+        }
+    }
+
+    @Benchmark
+    public Collection<User> commonFriendsEqualSize() {
+        return userService.getCommonUserFriends(HUB, OTHER_HUB);
+    }
+
+    @Benchmark
+    public Collection<User> commonFriendsSkewedSize() {
+        return userService.getCommonUserFriends(REGULAR, HUB);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+// Время берётся из бина, чтобы тесты могли подставить свои часы
+@Configuration
+public class ClockConfiguration {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
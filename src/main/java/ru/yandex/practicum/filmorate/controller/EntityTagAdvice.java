@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+ * Проверка If-None-Match после выбора формата ответа.
+ * Строгий ETag обещает побайтно одинаковое тело, а JSON, Smile и CBOR одной версии различаются,
+ * поэтому к версии сущности добавляется выбранный формат. Формат известен только после согласования
+ * содержимого, так что контроллер лишь запоминает версию, а сравнение идёт здесь, до вызова сериализатора:
+ * при совпадении ответ 304 уходит без тела.
+ */
+@ControllerAdvice(assignableTypes = {FilmController.class, UserController.class})
+public class EntityTagAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String VERSION_ATTRIBUTE = EntityTagAdvice.class.getName() + ".version";
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    // Вызывается контроллером после того, как сущность найдена: ошибки отдаются без ETag
+    static void tag(WebRequest request, String version) {
+        request.setAttribute(VERSION_ATTRIBUTE, version, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        if (!(httpRequest.getAttribute(VERSION_ATTRIBUTE) instanceof String version)) {
+            return body;
+        }
+        HttpServletResponse httpResponse = servletResponse.getServletResponse();
+        httpResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String etag = version + format(selectedContentType);
+        return new ServletWebRequest(httpRequest, httpResponse).checkNotModified(etag) ? null : body;
+    }
+
+    private static String format(MediaType contentType) {
+        if (SMILE.isCompatibleWith(contentType)) {
+            return "-smile";
+        }
+        if (CBOR.isCompatibleWith(contentType)) {
+            return "-cbor";
+        }
+        return "";
+    }
+}
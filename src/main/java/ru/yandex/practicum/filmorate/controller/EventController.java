@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Лента изменений лайков и дружбы вместо опроса /films/{id} и /users/{id}/friends
+@RestController
+@RequestMapping(path = "/events")
+@RequiredArgsConstructor
+public class EventController {
+
+    private final EventStreamer eventStreamer;
+
+    // Last-Event-ID браузер передаёт сам при переподключении, пропущенные события досылаются из буфера
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getEvents(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return eventStreamer.subscribe(lastEventId);
+    }
+}
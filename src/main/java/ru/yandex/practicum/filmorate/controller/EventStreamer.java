@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Лента изменений в формате server-sent events. Подписчиков обслуживает небольшой пул рассыльщиков
+ * (filmorate.events.dispatchers): каждый подписчик закреплён за одним из них и читает ChangeFeed своим курсором.
+ * Рассыльщик спит, пока новых событий нет, и просыпается от публикации; потоки запросов, публикующие события,
+ * только будят рассыльщиков и о подписчиках не знают. Медленный подписчик отстаёт сам; если буфер успел
+ * перезаписать его непрочитанные события, он получает событие missed с числом пропущенных и продолжает с самого
+ * старого события в буфере. Запись в медленное соединение задерживает подписчиков того же рассыльщика, поэтому
+ * пачка одному подписчику ограничена SEND_BATCH событиями.
+ *
+ * Подписчиков не больше filmorate.events.max-subscribers, следующие получают 503 с Retry-After.
+ *
+ * Рассыльщики — обычные потоки, не виртуальные: запись в соединение блокируется внутри synchronized
+ * в ResponseBodyEmitter, а виртуальный поток там занял бы поток-носитель.
+ */
+@Slf4j
+@Component
+public class EventStreamer implements DisposableBean {
+
+    private static final int SEND_BATCH = 256;
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final ChangeFeed feed;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final Dispatcher[] dispatchers;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicInteger nextDispatcher = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public EventStreamer(ChangeFeed feed, @Value("${filmorate.events.timeout:30m}") Duration timeout,
+                         @Value("${filmorate.events.dispatchers:2}") int dispatchers,
+                         @Value("${filmorate.events.max-subscribers:1000}") int maxSubscribers) {
+        if (dispatchers <= 0) {
+            throw new IllegalArgumentException("Число рассыльщиков ленты должно быть положительным: " + dispatchers);
+        }
+        if (maxSubscribers <= 0) {
+            throw new IllegalArgumentException("Число подписчиков ленты должно быть положительным: "
+                    + maxSubscribers);
+        }
+        this.feed = feed;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.dispatchers = new Dispatcher[dispatchers];
+        for (int i = 0; i < dispatchers; i++) {
+            this.dispatchers[i] = new Dispatcher("event-stream-" + i);
+        }
+        feed.onPublish(this::wakeUp);
+    }
+
+    // Без lastEventId — только новые события, с ним — начиная со следующего за ним, если он ещё в буфере
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            log.warn("Отклонена подписка на ленту событий: уже {} подписчиков", maxSubscribers);
+            throw new ServiceUnavailableException("Слишком много подписчиков ленты событий", RETRY_AFTER);
+        }
+        long last = feed.lastId();
+        long cursor = lastEventId == null || lastEventId > last ? last + 1 : lastEventId + 1;
+        Dispatcher dispatcher = dispatchers[Math.floorMod(nextDispatcher.getAndIncrement(), dispatchers.length)];
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), cursor, dispatcher);
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        dispatcher.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    public int subscribers() {
+        return subscriberCount.get();
+    }
+
+    // Закрывает все открытые ленты и останавливает рассыльщиков
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        closeAll();
+        for (Dispatcher dispatcher : dispatchers) {
+            LockSupport.unpark(dispatcher.thread);
+        }
+        for (Dispatcher dispatcher : dispatchers) {
+            dispatcher.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    // Закрывает все открытые ленты; рассыльщики продолжают работать
+    void closeAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void wakeUp() {
+        for (Dispatcher dispatcher : dispatchers) {
+            dispatcher.wakeUp();
+        }
+    }
+
+    private final class Dispatcher {
+
+        private final Queue<Subscriber> added = new ConcurrentLinkedQueue<>();
+        // только поток рассыльщика
+        private final List<Subscriber> own = new ArrayList<>();
+        private final Set<ResponseBodyEmitter.DataWithMediaType> batch = new LinkedHashSet<>();
+        private final Thread thread;
+        // рассыльщик спит или собирается уснуть; только тогда публикация его будит
+        private volatile boolean waiting;
+
+        Dispatcher(String name) {
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void add(Subscriber subscriber) {
+            added.offer(subscriber);
+            LockSupport.unpark(thread);
+        }
+
+        void wakeUp() {
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void run() {
+            while (running) {
+                Subscriber subscriber;
+                while ((subscriber = added.poll()) != null) {
+                    own.add(subscriber);
+                }
+                long published = feed.published();
+                long now = System.nanoTime();
+                boolean sent = false;
+                long sleep = HEARTBEAT_NANOS;
+                for (Iterator<Subscriber> it = own.iterator(); it.hasNext(); ) {
+                    Subscriber next = it.next();
+                    if (next.open.get()) {
+                        sent |= send(next, now);
+                    }
+                    if (!next.open.get()) {
+                        it.remove();
+                        continue;
+                    }
+                    sleep = Math.min(sleep, next.lastSent + HEARTBEAT_NANOS - now);
+                }
+                if (sent) {
+                    continue;
+                }
+                waiting = true;
+                // число публикаций проверяется ещё раз после waiting: событие, опубликованное до этого,
+                // не останется неотправленным. lastId здесь не годится: номер растёт раньше, чем событие
+                // попадает в буфер, и событие, записанное уже после неудачного чтения, проспало бы до пинга
+                if (running && added.isEmpty() && feed.published() == published) {
+                    LockSupport.parkNanos(this, Math.max(sleep, 0));
+                }
+                waiting = false;
+            }
+            own.forEach(Subscriber::close);
+        }
+
+        // true — подписчику что-то отправлено
+        private boolean send(Subscriber subscriber, long now) {
+            try {
+                long first = feed.firstId();
+                if (subscriber.cursor < first) {
+                    batch.addAll(SseEmitter.event().name("missed").data(first - subscriber.cursor).build());
+                    subscriber.cursor = first;
+                }
+                for (int i = 0; i < SEND_BATCH; i++) {
+                    ChangeEvent event = feed.get(subscriber.cursor);
+                    if (event == null) {
+                        break;
+                    }
+                    batch.addAll(SseEmitter.event()
+                            .id(String.valueOf(event.id()))
+                            .name(event.type().name())
+                            .data(event, MediaType.APPLICATION_JSON)
+                            .build());
+                    subscriber.cursor++;
+                }
+                boolean events = !batch.isEmpty();
+                if (!events && now - subscriber.lastSent >= HEARTBEAT_NANOS) {
+                    batch.addAll(SseEmitter.event().comment("ping").build());
+                }
+                if (batch.isEmpty()) {
+                    return false;
+                }
+                // пачка уходит одной записью и одним flush
+                subscriber.emitter.send(batch);
+                subscriber.lastSent = now;
+                return events;
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился или лента уже завершена
+                log.debug("Лента событий закрыта: {}", e.getMessage());
+                subscriber.close();
+                return false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Dispatcher dispatcher;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        // только поток рассыльщика
+        private long cursor;
+        private long lastSent = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor, Dispatcher dispatcher) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.dispatcher = dispatcher;
+        }
+
+        // Место подписчика освобождается сразу, рассыльщик забудет его на следующем проходе
+        void close() {
+            if (open.compareAndSet(true, false)) {
+                subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+                dispatcher.wakeUp();
+            }
+        }
+    }
+}
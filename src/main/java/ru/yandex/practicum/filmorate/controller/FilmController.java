@@ -3,10 +3,16 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.time.LocalDate;
 import java.util.Collection;
 
 @RestController
@@ -15,15 +21,55 @@ import java.util.Collection;
 public class FilmController {
 
     private final FilmService filmService;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final EntityVersions versions;
 
+    // releasedFrom и releasedTo — даты выхода включительно; sort=popular упорядочивает по числу лайков
     @GetMapping
-    public Collection<Film> getFilms() {
-        return filmService.getAllFilms();
+    public Collection<Film> getFilms(@RequestParam(required = false) Long after,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(required = false) LocalDate releasedFrom,
+                                     @RequestParam(required = false) LocalDate releasedTo,
+                                     @RequestParam(required = false) String sort) {
+        return filmService.getFilms(after, limit, releasedFrom, releasedTo, sort);
+    }
+
+    // ?view=summary — фильмы с likesCount вместо списка лайков
+    @GetMapping(params = "view=summary")
+    public Collection<FilmSummary> getFilmSummaries(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(required = false) LocalDate releasedFrom,
+                                                    @RequestParam(required = false) LocalDate releasedTo,
+                                                    @RequestParam(required = false) String sort) {
+        return filmService.getFilmSummaries(after, limit, releasedFrom, releasedTo, sort);
+    }
+
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(@RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) LocalDate releasedFrom,
+                                                             @RequestParam(required = false) LocalDate releasedTo,
+                                                             @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStreamer.APPLICATION_NDJSON)
+                .body(ndjsonStreamer.stream(filmService.getFilms(after, limit, releasedFrom, releasedTo, sort)));
     }
 
     @GetMapping("/{filmId}")
-    public Film getFilm(@PathVariable Long filmId) {
-        return filmService.getFilmById(filmId);
+    public Film getFilm(@PathVariable Long filmId, WebRequest request) {
+        // версия читается до фильма, см. EntityVersions; If-None-Match проверяет EntityTagAdvice
+        String version = versions.film(filmId);
+        Film film = filmService.getFilmById(filmId);
+        EntityTagAdvice.tag(request, version);
+        return film;
+    }
+
+    @GetMapping(path = "/{filmId}", params = "view=summary")
+    public FilmSummary getFilmSummary(@PathVariable Long filmId, WebRequest request) {
+        String version = versions.film(filmId);
+        Film film = filmService.getFilmById(filmId);
+        EntityTagAdvice.tag(request, version + "-summary");
+        return FilmSummary.of(film);
     }
 
     @PostMapping
@@ -47,8 +93,43 @@ public class FilmController {
         filmService.removeLikeFilm(id, userId);
     }
 
+    @GetMapping("/trending")
+    public Collection<Film> getTrendingFilms(@RequestParam(required = false) String window,
+                                             @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    @GetMapping(path = "/trending", params = "view=summary")
+    public Collection<FilmSummary> getTrendingFilmSummaries(@RequestParam(required = false) String window,
+                                                            @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilmSummaries(window, count);
+    }
+
+    // boostLikes=true поднимает фильмы с большим числом лайков
+    @GetMapping("/search")
+    public Collection<Film> searchFilms(@RequestParam(required = false) String q,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(defaultValue = "false") boolean boostLikes) {
+        return filmService.searchFilms(q, limit, boostLikes);
+    }
+
+    @GetMapping(path = "/search", params = "view=summary")
+    public Collection<FilmSummary> searchFilmSummaries(@RequestParam(required = false) String q,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(defaultValue = "false") boolean boostLikes) {
+        return filmService.searchFilmSummaries(q, limit, boostLikes);
+    }
+
     @GetMapping("/popular")
-    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count, WebRequest request) {
+        EntityTagAdvice.tag(request, versions.popularity());
         return filmService.getPopularFilms(count);
     }
+
+    @GetMapping(path = "/popular", params = "view=summary")
+    public Collection<FilmSummary> getPopularFilmSummaries(@RequestParam(defaultValue = "10") int count,
+                                                           WebRequest request) {
+        EntityTagAdvice.tag(request, versions.popularity() + "-summary");
+        return filmService.getPopularFilmSummaries(count);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCaches;
+
+import java.util.Map;
+
+// Служебные эндпоинты для мониторинга
+@RestController
+@RequestMapping(path = "/internal")
+@RequiredArgsConstructor
+public class InternalController {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ObjectProvider<EntityCaches> entityCaches;
+    private final MetricsRegistry metricsRegistry;
+
+    @GetMapping("/cache")
+    public Map<String, Map<String, Number>> getCacheStats() {
+        EntityCaches caches = entityCaches.getIfAvailable();
+        return caches == null ? Map.of() : caches.stats();
+    }
+
+    @GetMapping(path = "/metrics", produces = PROMETHEUS_TEXT)
+    public String getMetrics() {
+        return metricsRegistry.scrape();
+    }
+}
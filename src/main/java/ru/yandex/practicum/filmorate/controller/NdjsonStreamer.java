@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Потоковая выдача коллекции в формате NDJSON: по одной сущности на строку, без буферизации всего ответа
+@Component
+public class NdjsonStreamer {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    private static final int FLUSH_EVERY = 256;
+
+    private final ObjectWriter writer;
+
+    public NdjsonStreamer(ObjectMapper objectMapper) {
+        // без пустого разделителя Jackson ставит пробел перед каждым корневым значением после первого
+        this.writer = objectMapper.writer()
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public StreamingResponseBody stream(Iterable<?> items) {
+        return output -> {
+            try (JsonGenerator generator = writer.createGenerator(output)) {
+                int written = 0;
+                for (Object item : items) {
+                    writer.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                    // первую запись отправляем сразу, дальше — пачками
+                    if (++written % FLUSH_EVERY == 1) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -3,8 +3,16 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.FilmRecommendation;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.service.EntityVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -15,15 +23,45 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final EntityVersions versions;
 
     @GetMapping
-    public Collection<User> getUsers() {
-        return userService.getAllUsers();
+    public Collection<User> getUsers(@RequestParam(required = false) Long after,
+                                     @RequestParam(required = false) Integer limit) {
+        return userService.getUsers(after, limit);
+    }
+
+    // ?view=summary — пользователи с friendsCount вместо списка друзей
+    @GetMapping(params = "view=summary")
+    public Collection<UserSummary> getUserSummaries(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit) {
+        return userService.getUserSummaries(after, limit);
+    }
+
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStreamer.APPLICATION_NDJSON)
+                .body(ndjsonStreamer.stream(userService.getUsers(after, limit)));
     }
 
     @GetMapping("/{userId}")
-    public User getFilm(@PathVariable Long userId) {
-        return userService.getUserById(userId);
+    public User getFilm(@PathVariable Long userId, WebRequest request) {
+        String version = versions.user(userId);
+        User user = userService.getUserById(userId);
+        EntityTagAdvice.tag(request, version);
+        return user;
+    }
+
+    @GetMapping(path = "/{userId}", params = "view=summary")
+    public UserSummary getUserSummary(@PathVariable Long userId, WebRequest request) {
+        String version = versions.user(userId);
+        User user = userService.getUserById(userId);
+        EntityTagAdvice.tag(request, version + "-summary");
+        return UserSummary.of(user);
     }
 
     @PostMapping
@@ -48,8 +86,37 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public Collection<User> getFriends(@PathVariable Long id) {
-        return userService.getUserFriends(id);
+    public Collection<User> getFriends(@PathVariable Long id,
+                                       @RequestParam(required = false) Long after,
+                                       @RequestParam(required = false) Integer limit,
+                                       WebRequest request) {
+        String version = versions.friends(id, after, limit);
+        Collection<User> friends = userService.getUserFriends(id, after, limit);
+        EntityTagAdvice.tag(request, version);
+        return friends;
+    }
+
+    @GetMapping(path = "/{id}/friends", params = "view=summary")
+    public Collection<UserSummary> getFriendSummaries(@PathVariable Long id,
+                                                      @RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      WebRequest request) {
+        String version = versions.friends(id, after, limit);
+        Collection<UserSummary> friends = userService.getUserFriendSummaries(id, after, limit);
+        EntityTagAdvice.tag(request, version + "-summary");
+        return friends;
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<FriendRecommendation> getRecommendations(@PathVariable Long id,
+                                                               @RequestParam(required = false) Integer limit) {
+        return userService.getRecommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public Collection<FilmRecommendation> getRecommendedFilms(@PathVariable Long id,
+                                                              @RequestParam(required = false) Integer limit) {
+        return filmService.getRecommendedFilms(id, limit);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Запрос можно повторить позже: через retryAfter ресурс, скорее всего, освободится
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.httplog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Передаёт отформатированные записи фоновому потоку через ограниченную очередь.
+// Поток запроса не ждёт вывода: если очередь заполнена, запись отбрасывается и учитывается в dropped()
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, AutoCloseable {
+
+    // тот же логгер и уровень, что у DefaultHttpLogWriter, чтобы logging.level.org.zalando.logbook работал как раньше
+    private static final Logger HTTP_LOG = LoggerFactory.getLogger(Logbook.class);
+    private static final int DRAIN_BATCH = 256;
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final BlockingQueue<String> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncHttpLogWriter(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "http-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return HTTP_LOG.isTraceEnabled();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        enqueue(request);
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        enqueue(response);
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    // Дописывает оставшееся в очереди и останавливает фоновый поток
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        if (dropped.sum() > 0) {
+            log.warn("Очередь HTTP-лога переполнялась, отброшено записей: {}", dropped.sum());
+        }
+    }
+
+    private void enqueue(String message) {
+        if (!queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    // Поток не ждёт на очереди, а просыпается по таймеру: offer в потоке запроса никого не будит
+    private void drain() {
+        List<String> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            if (queue.drainTo(batch, DRAIN_BATCH) == 0) {
+                LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+                continue;
+            }
+            write(batch);
+        }
+    }
+
+    private static void write(List<String> batch) {
+        for (String message : batch) {
+            HTTP_LOG.trace(message);
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.httplog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.BodyFilter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.core.BodyFilters;
+
+import java.time.Duration;
+
+// В режиме sync остаются стандартные бины Logbook: каждый запрос пишется синхронно в потоке запроса
+@Configuration
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "sampled", matchIfMissing = true)
+public class HttpLogConfiguration {
+
+    @Bean
+    public Strategy samplingStrategy(@Value("${filmorate.http-log.sample-rate:0.01}") double sampleRate,
+                                     @Value("${filmorate.http-log.slow-threshold:500ms}") Duration slowThreshold) {
+        return new SamplingStrategy(sampleRate, slowThreshold);
+    }
+
+    @Bean
+    public HttpLogWriter asyncHttpLogWriter(@Value("${filmorate.http-log.queue-capacity:10000}") int capacity) {
+        return new AsyncHttpLogWriter(capacity);
+    }
+
+    // Обрезка тел только в этом режиме: в очереди лежат готовые записи, и их размер ограничивает память.
+    // Свой BodyFilter заменяет стандартный фильтр Logbook, поэтому стандартный входит в него же
+    @Bean
+    public BodyFilter truncatingBodyFilter(@Value("${filmorate.http-log.max-body-size:2048}") int maxBodySize) {
+        return BodyFilter.merge(BodyFilters.defaultValue(), BodyFilters.truncate(maxBodySize));
+    }
+}
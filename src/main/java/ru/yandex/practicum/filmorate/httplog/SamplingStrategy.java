@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.httplog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Пишет запрос и ответ одной записью после ответа:
+ * - ошибки (статус от 400) и медленные запросы — всегда;
+ * - остальные — с вероятностью sampleRate.
+ * Тело ответа остаётся у отобранных запросов и у ошибок: статус к вызову process уже известен, а тело ошибки
+ * невелико. У медленных запросов вне выборки в лог попадает тело запроса, но не ответа.
+ */
+public class SamplingStrategy implements Strategy {
+
+    private final double sampleRate;
+    private final Duration slowThreshold;
+    // Logbook передаёт в process и write один и тот же объект запроса; слабые ключи сравниваются по ссылке
+    private final Cache<HttpRequest, Boolean> sampledRequests = Caffeine.newBuilder().weakKeys().build();
+
+    public SamplingStrategy(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос откладывается до ответа, когда станет ясно, нужно ли его писать
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sampledRequests.put(request, Boolean.TRUE);
+            return response.withBody();
+        }
+        return isError(response.getStatus()) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        boolean sampled = sampledRequests.asMap().remove(request) != null;
+        if (shouldLog(sampled, response.getStatus(), correlation.getDuration())) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    boolean shouldLog(boolean sampled, int status, Duration duration) {
+        return sampled || isError(status) || duration.compareTo(slowThreshold) >= 0;
+    }
+
+    private static boolean isError(int status) {
+        return status >= 400;
+    }
+}
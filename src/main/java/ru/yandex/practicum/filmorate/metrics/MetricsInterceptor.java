@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Замеряет запрос от первого вызова обработчика до завершения, включая асинхронную выдачу NDJSON
+@Component
+@RequiredArgsConstructor
+public class MetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED_AT = MetricsInterceptor.class.getName() + ".startedAt";
+
+    private final MetricsRegistry registry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(STARTED_AT) == null) {
+            request.setAttribute(STARTED_AT, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (Long) startedAt;
+        // шаблон пути, а не сам путь, чтобы id не плодили отдельные метрики
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        registry.endpoint(request.getMethod(), uri).record(elapsed, outcome(response.getStatus(), ex));
+    }
+
+    private static OperationMetrics.Outcome outcome(int status, Exception ex) {
+        if (ex != null || status >= 500) {
+            return OperationMetrics.Outcome.SERVER_ERROR;
+        }
+        return status >= 400 ? OperationMetrics.Outcome.CLIENT_ERROR : OperationMetrics.Outcome.SUCCESS;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Хранит метрики эндпоинтов и сервисов и выводит их в текстовом формате Prometheus
+@Component
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Map<String, OperationMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, OperationMetrics> services = new ConcurrentHashMap<>();
+
+    public OperationMetrics endpoint(String method, String uri) {
+        return endpoints.computeIfAbsent(label("method", method) + "," + label("uri", uri),
+                key -> new OperationMetrics());
+    }
+
+    public OperationMetrics serviceMethod(String name) {
+        return services.computeIfAbsent(label("method", name), key -> new OperationMetrics());
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        write(out, "filmorate_http_requests", "HTTP-запросы к эндпоинтам", endpoints);
+        write(out, "filmorate_service_calls", "Вызовы методов сервисов", services);
+        return out.toString();
+    }
+
+    private static void write(StringBuilder out, String name, String help, Map<String, OperationMetrics> metrics) {
+        Map<String, OperationMetrics> sorted = new TreeMap<>(metrics);
+        out.append("# HELP ").append(name).append("_seconds ").append(help).append(", задержка\n");
+        out.append("# TYPE ").append(name).append("_seconds summary\n");
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+        sorted.forEach((labels, operation) -> snapshots.put(labels, operation.latency()));
+        snapshots.forEach((labels, latency) -> {
+            for (double quantile : QUANTILES) {
+                sample(out, name + "_seconds", labels + ",quantile=\"" + quantile + "\"",
+                        seconds(latency.valueAtQuantile(quantile)));
+            }
+            sample(out, name + "_seconds_sum", labels, seconds(latency.sum()));
+            sample(out, name + "_seconds_count", labels, Long.toString(latency.count()));
+        });
+        out.append("# HELP ").append(name).append("_total ").append(help).append(" по исходу\n");
+        out.append("# TYPE ").append(name).append("_total counter\n");
+        sorted.forEach((labels, operation) -> {
+            long clientErrors = operation.clientErrors();
+            long serverErrors = operation.serverErrors();
+            long success = snapshots.get(labels).count() - clientErrors - serverErrors;
+            sample(out, name + "_total", labels + ",outcome=\"success\"", Long.toString(Math.max(success, 0)));
+            sample(out, name + "_total", labels + ",outcome=\"client_error\"", Long.toString(clientErrors));
+            sample(out, name + "_total", labels + ",outcome=\"server_error\"", Long.toString(serverErrors));
+        });
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / NANOS_PER_SECOND);
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Задержки и исходы одной операции: эндпоинта или метода сервиса
+public class OperationMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+
+    public void record(long nanos, Outcome outcome) {
+        latency.record(nanos);
+        switch (outcome) {
+            case CLIENT_ERROR -> clientErrors.increment();
+            case SERVER_ERROR -> serverErrors.increment();
+            case SUCCESS -> {
+            }
+        }
+    }
+
+    LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    long clientErrors() {
+        return clientErrors.sum();
+    }
+
+    long serverErrors() {
+        return serverErrors.sum();
+    }
+
+    public enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+// Оборачивает бины @Service в прокси, который замеряет каждый публичный метод
+@Component
+public class ServiceMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MetricsRegistry> registry;
+
+    public ServiceMetricsPostProcessor(ObjectProvider<MetricsRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> type = bean.getClass();
+        if (AnnotationUtils.findAnnotation(type, Service.class) == null) {
+            return bean;
+        }
+        // метрики методов создаются заранее, чтобы вызов не искал их в общей карте
+        Map<Method, OperationMetrics> metrics = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getDeclaringClass() == type && !Modifier.isStatic(method.getModifiers())) {
+                metrics.put(method, registry.getObject().serviceMethod(type.getSimpleName() + "." + method.getName()));
+            }
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            OperationMetrics operation = metrics.get(invocation.getMethod());
+            if (operation == null) {
+                return invocation.proceed();
+            }
+            long startedAt = System.nanoTime();
+            OperationMetrics.Outcome outcome = OperationMetrics.Outcome.SERVER_ERROR;
+            try {
+                Object result = invocation.proceed();
+                outcome = OperationMetrics.Outcome.SUCCESS;
+                return result;
+            } catch (NotFoundException | ValidationException e) {
+                // исход совпадает с ответом ErrorHandler: OtherException отдаётся как 500
+                outcome = OperationMetrics.Outcome.CLIENT_ERROR;
+                throw e;
+            } finally {
+                operation.record(System.nanoTime() - startedAt, outcome);
+            }
+        });
+        return factory.getProxy(type.getClassLoader());
+    }
+}
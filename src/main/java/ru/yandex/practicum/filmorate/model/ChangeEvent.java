@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// Изменение для ленты /events: лайк фильма или дружба. Заполнен filmId или friendId, в зависимости от type
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeEvent(long id, Type type, long userId, Long filmId, Long friendId, Instant at) {
+
+    public enum Type {
+        LIKE_ADDED,
+        LIKE_REMOVED,
+        FRIEND_ADDED,
+        FRIEND_REMOVED
+    }
+}
@@ -4,17 +4,16 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.CompactLongSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 
 @Data
 @NoArgsConstructor
 public class Film {
     private Long id;
-    private Set<Long> usersLikes = new HashSet<>();
+    private CompactLongSet usersLikes = new CompactLongSet();
 
     @NotBlank(message = "Название фильма не может быть пустым")
     private String name;
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Рекомендованный фильм и сумма его совместных лайков с фильмами пользователя
+public record FilmRecommendation(FilmSummary film, int coLikes) {
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+// Фильм без списка лайков, только их число (?view=summary)
+public record FilmSummary(Long id, String name, String description, LocalDate releaseDate, Integer duration,
+                          int likesCount) {
+
+    public static FilmSummary of(Film film) {
+        return new FilmSummary(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getUsersLikes().size());
+    }
+}
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Рекомендованный пользователь и число общих с ним друзей
+public record FriendRecommendation(UserSummary user, int mutualFriends) {
+}
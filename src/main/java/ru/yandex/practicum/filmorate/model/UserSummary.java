@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+// Пользователь без списка друзей, только их число (?view=summary)
+public record UserSummary(Long id, String email, String login, String name, LocalDate birthday, int friendsCount) {
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(),
+                user.getFriends().size());
+    }
+}
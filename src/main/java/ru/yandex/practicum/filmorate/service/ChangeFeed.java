@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.util.SequencedRing;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Последние изменения лайков и дружбы для ленты /events. Публикация — запись в кольцевой буфер без блокировок,
+ * она не ждёт ни других писателей, ни подписчиков; подписчики читают буфер сами, каждый со своим курсором.
+ * Сервисы публикуют событие под блокировкой фильма или пары друзей, когда изменение уже записано до конца
+ * и версии для ETag повышены, поэтому события одного фильма или одной пары друзей идут в порядке изменений.
+ * Буфер ограничен filmorate.events.capacity событиями, старые затираются. Номера событий начинаются
+ * с 1 при каждом запуске приложения.
+ */
+@Component
+public class ChangeFeed {
+
+    private final SequencedRing<ChangeEvent> ring;
+    private final Clock clock;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // растёт, когда событие уже записано в буфер, а не когда писатель взял номер
+    private final AtomicLong published = new AtomicLong();
+
+    public ChangeFeed(Clock clock, @Value("${filmorate.events.capacity:4096}") int capacity) {
+        this.ring = new SequencedRing<>(capacity);
+        this.clock = clock;
+    }
+
+    public void likeAdded(long filmId, long userId) {
+        publish(ChangeEvent.Type.LIKE_ADDED, userId, filmId, null);
+    }
+
+    public void likeRemoved(long filmId, long userId) {
+        publish(ChangeEvent.Type.LIKE_REMOVED, userId, filmId, null);
+    }
+
+    public void friendAdded(long userId, long friendId) {
+        publish(ChangeEvent.Type.FRIEND_ADDED, userId, null, friendId);
+    }
+
+    public void friendRemoved(long userId, long friendId) {
+        publish(ChangeEvent.Type.FRIEND_REMOVED, userId, null, friendId);
+    }
+
+    // listener вызывается после каждой публикации в потоке писателя и не должен блокироваться
+    public void onPublish(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    // Событие с номером id или null, если оно ещё не опубликовано до конца или уже затёрто
+    public ChangeEvent get(long id) {
+        return ring.get(id);
+    }
+
+    public long lastId() {
+        return ring.last();
+    }
+
+    public long firstId() {
+        return ring.first();
+    }
+
+    // Число законченных публикаций. Номер события писатель берёт раньше, чем кладёт событие в буфер,
+    // поэтому о новом событии надёжно говорит только рост этого числа, а не lastId
+    public long published() {
+        return published.get();
+    }
+
+    private void publish(ChangeEvent.Type type, long userId, Long filmId, Long friendId) {
+        ring.publish(id -> new ChangeEvent(id, type, userId, filmId, friendId, clock.instant()));
+        published.incrementAndGet();
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
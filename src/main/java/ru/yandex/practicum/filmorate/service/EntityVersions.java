@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Версии фильмов, пользователей, списков друзей и рейтинга популярных фильмов для ETag.
+ * Каждое изменение получает следующее значение общего счётчика, поэтому версия сущности только растёт
+ * и никогда не повторяется. Очистка хранилища запоминает свою версию как нижнюю границу для всех записей.
+ * Версия повышается после записи в хранилище, а читается до чтения данных: ETag может оказаться старше
+ * отданного содержимого (клиент лишний раз получит 200), но не новее (клиент не получит устаревший 304).
+ * ETag включает случайную эпоху запуска: после перезапуска счётчик начинается заново.
+ *
+ * Версии хранятся не по id, а в VERSION_SLOTS ячейках, куда попадает много id сразу: ячейка держит наибольшую
+ * версию своих id. Память не растёт с числом сущностей и не требует чистки, а совпадение ячеек лишь меняет ETag
+ * соседа без нужды — ещё один лишний 200, но не устаревший 304.
+ */
+@Component
+public class EntityVersions {
+
+    private static final int VERSION_SLOTS = 1 << 14;
+
+    private final long epoch = ThreadLocalRandom.current().nextLong() >>> 1;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray films = new AtomicLongArray(VERSION_SLOTS);
+    private final AtomicLongArray users = new AtomicLongArray(VERSION_SLOTS);
+    // список друзей пользователя: его друзья и всё, что о них отдаётся (поля, друзья, число друзей)
+    private final AtomicLongArray friendLists = new AtomicLongArray(VERSION_SLOTS);
+    private volatile long filmsCleared;
+    private volatile long usersCleared;
+    private volatile long popularity;
+
+    // Лайки и поля фильма входят и в сам фильм, и в рейтинг популярных
+    public void filmChanged(long filmId) {
+        bump(films, filmId);
+        popularity = clock.incrementAndGet();
+    }
+
+    public void filmsCleared() {
+        filmsCleared = clock.incrementAndGet();
+        popularity = clock.incrementAndGet();
+    }
+
+    public void userChanged(long userId) {
+        bump(users, userId);
+    }
+
+    // Пользователь есть в списках друзей у каждого своего друга, поэтому устаревают и эти списки
+    public void userChanged(long userId, long[] friendIds) {
+        userChanged(userId);
+        for (long friendId : friendIds) {
+            bump(friendLists, friendId);
+        }
+    }
+
+    // Друзья передаются уже после записи в хранилище. Изменился набор друзей обоих пользователей,
+    // а значит, их собственные списки и списки всех, у кого они в друзьях
+    public void friendshipChanged(long userId, long friendId, long[] userFriendIds, long[] friendFriendIds) {
+        userChanged(userId, userFriendIds);
+        userChanged(friendId, friendFriendIds);
+        bump(friendLists, userId);
+        bump(friendLists, friendId);
+    }
+
+    // Вместе с пользователями удаляются их лайки, поэтому устаревают и фильмы
+    public void usersCleared() {
+        usersCleared = clock.incrementAndGet();
+        filmsCleared();
+    }
+
+    public String film(long filmId) {
+        return etag(version(films, filmId, filmsCleared));
+    }
+
+    public String user(long userId) {
+        return etag(version(users, userId, usersCleared));
+    }
+
+    // Разные страницы списка — разные ответы, поэтому параметры страницы входят в ETag
+    public String friends(long userId, Long after, Integer limit) {
+        String etag = etag(version(friendLists, userId, usersCleared));
+        return after == null && limit == null ? etag : etag + "-" + after + "-" + limit;
+    }
+
+    public String popularity() {
+        return etag(popularity);
+    }
+
+    private void bump(AtomicLongArray versions, long id) {
+        long version = clock.incrementAndGet();
+        versions.accumulateAndGet(slot(id), version, Math::max);
+    }
+
+    private static long version(AtomicLongArray versions, long id, long cleared) {
+        return Math.max(versions.get(slot(id)), cleared);
+    }
+
+    private static int slot(long id) {
+        return Long.hashCode(id) & (VERSION_SLOTS - 1);
+    }
+
+    private String etag(long version) {
+        return Long.toHexString(epoch) + "-" + Long.toHexString(version);
+    }
+}
@@ -0,0 +1,420 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.LongIntHashMap;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Число пользователей, лайкнувших оба фильма, для каждой пары фильмов.
+ * Обновляется на каждом лайке: новый лайк пользователя добавляет по единице ко всем парам с фильмами,
+ * которые он лайкнул раньше. Поэтому здесь же хранятся последние лайки каждого пользователя.
+ *
+ * Соседи фильма хранятся не все, а не больше neighbors самых частых (алгоритм Space-Saving):
+ * когда места нет, новый сосед вытесняет самого редкого и получает его счётчик плюс один.
+ * Счётчики вытеснявших соседей завышены не больше чем на счётчик вытесненного, зато память ограничена.
+ * У пользователя учитываются только последние MAX_PAIRED_LIKES лайков: пары есть между всеми ними,
+ * а лайк, вытесненный новым, уносит свои пары с собой. Снятие лайка убирает ровно его пары. Так память
+ * на пользователя ограничена, а старые лайки активного пользователя не участвуют в рекомендациях и не
+ * исключаются из них — это делает FilmService. После построения из хранилища порядок лайков — порядок
+ * обхода хранилища, а не время лайка.
+ *
+ * likeChanged вызывает FilmService под своей блокировкой фильма, после записи в хранилище, поэтому изменения
+ * одной пары фильм—пользователь приходят в порядке применения и с хранилищем не сверяются.
+ *
+ * Строится из хранилища в фоне после запуска приложения и заново после очистки данных; до конца построения
+ * рекомендации пустые, а лайки продолжают приниматься.
+ */
+@Component
+@Slf4j
+public class FilmCoLikes {
+
+    static final int MAX_PAIRED_LIKES = 1000;
+
+    private final FilmStorage filmStorage;
+    private final int neighbors;
+    private final Map<Long, UserLikes> userLikes = new ConcurrentHashMap<>();
+    private final Map<Long, Neighbors> filmNeighbors = new ConcurrentHashMap<>();
+    // блокировки пользователя всегда берутся раньше блокировок фильма
+    private final StripedLocks userLocks = new StripedLocks(64);
+    private final StripedLocks filmLocks = new StripedLocks(64);
+    // обновления и построение идут под чтением, очистка — под записью
+    private final ReentrantReadWriteLock state = new ReentrantReadWriteLock();
+    private final AtomicBoolean buildStarted = new AtomicBoolean();
+    // увеличивается при очистке: построение, начатое до неё, прекращается
+    private final AtomicLong generation = new AtomicLong();
+    // лайки, изменённые во время построения; пока построения нет — null
+    private final AtomicReference<Set<Like>> changedDuringBuild = new AtomicReference<>();
+    private volatile boolean ready;
+
+    public FilmCoLikes(FilmStorage filmStorage,
+                       @Value("${filmorate.recommendations.film-neighbors:64}") int neighbors) {
+        if (neighbors <= 0) {
+            throw new IllegalArgumentException("Число соседей фильма должно быть положительным: " + neighbors);
+        }
+        this.filmStorage = filmStorage;
+        this.neighbors = neighbors;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (buildStarted.compareAndSet(false, true)) {
+            buildInBackground();
+        }
+    }
+
+    // Вызывается после каждого изменения лайка в хранилище, когда изменение уже применено; liked — стоит ли лайк
+    public void likeChanged(long filmId, long userId, boolean liked) {
+        Set<Like> changed = changedDuringBuild.get();
+        if (changed != null) {
+            changed.add(new Like(filmId, userId));
+        }
+        state.readLock().lock();
+        try {
+            ReentrantLock userLock = userLocks.lockFor(userId);
+            userLock.lock();
+            try {
+                apply(filmId, userId, liked);
+            } finally {
+                userLock.unlock();
+            }
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    // k фильмов с наибольшей суммой совместных лайков с фильмами пользователя, кроме уже лайкнутых
+    public LongIntTopK recommend(long userId, int k) {
+        if (!ready) {
+            return new LongIntTopK(0);
+        }
+        state.readLock().lock();
+        try {
+            long[] liked = userLocks.withLock(userId, () -> {
+                UserLikes likes = userLikes.get(userId);
+                return likes == null ? new long[0] : likes.films();
+            });
+            LongIntHashMap scores = new LongIntHashMap(liked.length * Math.min(neighbors, 16));
+            for (long filmId : liked) {
+                scores.add(filmId, Integer.MIN_VALUE / 2);
+            }
+            for (long filmId : liked) {
+                ReentrantLock lock = filmLocks.lockFor(filmId);
+                lock.lock();
+                try {
+                    Neighbors list = filmNeighbors.get(filmId);
+                    if (list != null) {
+                        list.addTo(scores);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            LongIntTopK top = new LongIntTopK(Math.min(k, scores.size()));
+            scores.forEach((filmId, score) -> {
+                if (score > 0) {
+                    top.offer(filmId, score);
+                }
+            });
+            return top;
+        } finally {
+            state.readLock().unlock();
+        }
+    }
+
+    // Строит заново из хранилища: после очистки пользователей хранилище в памяти сохраняет их лайки у фильмов,
+    // а в базе они удалены
+    public void clear() {
+        state.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            ready = false;
+            userLikes.clear();
+            filmNeighbors.clear();
+        } finally {
+            state.writeLock().unlock();
+        }
+        if (buildStarted.get()) {
+            buildInBackground();
+        }
+    }
+
+    int coLikes(long filmId, long otherFilmId) {
+        return filmLocks.withLock(filmId, () -> {
+            Neighbors list = filmNeighbors.get(filmId);
+            return list == null ? 0 : list.count(otherFilmId);
+        });
+    }
+
+    /*
+     * Лайки из хранилища применяются без сверки: сверять каждый — лишний запрос на лайк. Снимок фильма
+     * может устареть, пока до него дойдёт очередь, поэтому лайки, изменённые за время построения,
+     * после него сверяются с хранилищем ещё раз. Писатели при этом не ждут.
+     */
+    public void build() {
+        buildStarted.set(true);
+        long start = System.nanoTime();
+        long gen = generation.get();
+        Set<Like> changed = ConcurrentHashMap.newKeySet();
+        changedDuringBuild.set(changed);
+        long likes = 0;
+        try {
+            for (Film film : filmStorage.getFilms()) {
+                state.readLock().lock();
+                try {
+                    if (generation.get() != gen) {
+                        log.info("Построение совместных лайков прервано очисткой данных");
+                        break;
+                    }
+                    for (PrimitiveIterator.OfLong it = film.getUsersLikes().iterator(); it.hasNext(); likes++) {
+                        long userId = it.nextLong();
+                        ReentrantLock userLock = userLocks.lockFor(userId);
+                        userLock.lock();
+                        try {
+                            apply(film.getId(), userId, true);
+                        } finally {
+                            userLock.unlock();
+                        }
+                    }
+                } finally {
+                    state.readLock().unlock();
+                }
+            }
+        } finally {
+            // построение, прерванное очисткой, не трогает набор следующего построения
+            changedDuringBuild.compareAndSet(changed, null);
+        }
+        state.readLock().lock();
+        try {
+            // после очистки данные достраивает следующее построение
+            if (generation.get() != gen) {
+                return;
+            }
+            for (Like like : changed) {
+                sync(like.filmId(), like.userId());
+            }
+            ready = true;
+        } finally {
+            state.readLock().unlock();
+        }
+        log.info("Совместные лайки построены: {} лайков, {} фильмов с соседями, {} сверено повторно за {} мс",
+                likes, filmNeighbors.size(), changed.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void buildInBackground() {
+        Thread thread = new Thread(this::build, "co-likes-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Хранилище читается под блокировкой пользователя: изменение, записанное после чтения, придёт следом
+    // в likeChanged и дождётся этой блокировки
+    private void sync(long filmId, long userId) {
+        ReentrantLock userLock = userLocks.lockFor(userId);
+        userLock.lock();
+        try {
+            apply(filmId, userId, filmStorage.hasLike(filmId, userId));
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой пользователя; повторный лайк или снятие несуществующего ничего не меняют
+    private void apply(long filmId, long userId, boolean liked) {
+        UserLikes likes = userLikes.get(userId);
+        if (liked) {
+            if (likes == null) {
+                likes = new UserLikes();
+                userLikes.put(userId, likes);
+            } else if (likes.contains(filmId)) {
+                return;
+            }
+            if (likes.size() == MAX_PAIRED_LIKES) {
+                long oldest = likes.oldest();
+                likes.remove(oldest);
+                pair(oldest, likes, -1);
+            }
+            pair(filmId, likes, 1);
+            likes.add(filmId);
+        } else {
+            if (likes == null || !likes.contains(filmId)) {
+                return;
+            }
+            likes.remove(filmId);
+            pair(filmId, likes, -1);
+            if (likes.isEmpty()) {
+                userLikes.remove(userId);
+            }
+        }
+    }
+
+    // Пары фильма со всеми учтёнными фильмами пользователя, кроме него самого
+    private void pair(long filmId, UserLikes likes, int delta) {
+        for (int i = 0; i < likes.size(); i++) {
+            long other = likes.film(i);
+            bump(filmId, other, delta);
+            bump(other, filmId, delta);
+        }
+    }
+
+    private void bump(long filmId, long otherFilmId, int delta) {
+        ReentrantLock lock = filmLocks.lockFor(filmId);
+        lock.lock();
+        try {
+            Neighbors list = filmNeighbors.get(filmId);
+            if (delta > 0) {
+                if (list == null) {
+                    list = new Neighbors();
+                    filmNeighbors.put(filmId, list);
+                }
+                list.increment(otherFilmId, neighbors);
+            } else if (list != null && list.decrement(otherFilmId)) {
+                filmNeighbors.remove(filmId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Like(long filmId, long userId) {
+    }
+
+    // Последние фильмы пользователя в порядке лайков и они же по возрастанию id для поиска
+    private static final class UserLikes {
+
+        private long[] films = new long[4];
+        private long[] sorted = new long[4];
+        private int size;
+
+        boolean contains(long filmId) {
+            return Arrays.binarySearch(sorted, 0, size, filmId) >= 0;
+        }
+
+        void add(long filmId) {
+            if (size == films.length) {
+                int length = Math.min(MAX_PAIRED_LIKES, size * 2);
+                films = Arrays.copyOf(films, length);
+                sorted = Arrays.copyOf(sorted, length);
+            }
+            films[size] = filmId;
+            int index = -Arrays.binarySearch(sorted, 0, size, filmId) - 1;
+            System.arraycopy(sorted, index, sorted, index + 1, size - index);
+            sorted[index] = filmId;
+            size++;
+        }
+
+        // Место в порядке лайков ищется перебором, но снятие лайка и так обходит все фильмы пользователя
+        void remove(long filmId) {
+            int index = Arrays.binarySearch(sorted, 0, size, filmId);
+            System.arraycopy(sorted, index + 1, sorted, index, size - index - 1);
+            int position = 0;
+            while (films[position] != filmId) {
+                position++;
+            }
+            System.arraycopy(films, position + 1, films, position, size - position - 1);
+            size--;
+        }
+
+        long oldest() {
+            return films[0];
+        }
+
+        long film(int index) {
+            return films[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long[] films() {
+            return Arrays.copyOf(films, size);
+        }
+    }
+
+    // Массивы растут по мере надобности: у большинства фильмов соседей гораздо меньше предела
+    private static final class Neighbors {
+
+        private long[] ids = new long[4];
+        private int[] counts = new int[4];
+        private int size;
+
+        void increment(long id, int capacity) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                counts[index]++;
+                return;
+            }
+            if (size < capacity) {
+                if (size == ids.length) {
+                    int length = Math.min(capacity, size * 2);
+                    ids = Arrays.copyOf(ids, length);
+                    counts = Arrays.copyOf(counts, length);
+                }
+                ids[size] = id;
+                counts[size++] = 1;
+                return;
+            }
+            int min = 0;
+            for (int i = 1; i < size; i++) {
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            ids[min] = id;
+            counts[min]++;
+        }
+
+        // true, если соседей не осталось
+        boolean decrement(long id) {
+            int index = indexOf(id);
+            if (index >= 0 && --counts[index] == 0) {
+                size--;
+                ids[index] = ids[size];
+                counts[index] = counts[size];
+            }
+            return size == 0;
+        }
+
+        int count(long id) {
+            int index = indexOf(id);
+            return index < 0 ? 0 : counts[index];
+        }
+
+        void addTo(LongIntHashMap scores) {
+            for (int i = 0; i < size; i++) {
+                scores.add(ids[i], counts[i]);
+            }
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
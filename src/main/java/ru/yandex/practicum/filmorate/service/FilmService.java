@@ -7,31 +7,83 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.OtherException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmRecommendation;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.List;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class FilmService {
+    private static final int DEFAULT_RECOMMENDATIONS = 10;
+    private static final int DEFAULT_SEARCH_RESULTS = 20;
+    private static final String SORT_POPULAR = "popular";
+    private static final String DECAYED = "decayed";
+
     private final FilmStorage filmStorage;
     private final UserService userService;
-    private final Comparator<Film> filmComparator = Comparator.comparing((Film film) -> film.getUsersLikes().size()).reversed();
-
+    private final EntityVersions versions;
+    private final FilmCoLikes coLikes;
+    private final FilmTrends trends;
+    private final ChangeFeed changes;
+    private final LikeWriter likeWriter;
+    private final StripedLocks likeLocks = new StripedLocks(64);
 
     public Collection<Film> getAllFilms() {
         return filmStorage.getFilms();
     }
 
+    // Без after и limit возвращает все фильмы, как раньше
+    public Collection<Film> getFilms(Long after, Integer limit) {
+        if (after == null && limit == null) {
+            return getAllFilms();
+        }
+        return filmStorage.getFilms(after == null ? 0 : after, Limits.checkLimit(limit));
+    }
+
+    // С датами выхода или sort=popular фильмы выбираются по индексу дат выхода; after с ними не сочетается
+    public Collection<Film> getFilms(Long after, Integer limit, LocalDate releasedFrom, LocalDate releasedTo,
+                                     String sort) {
+        if (releasedFrom == null && releasedTo == null && sort == null) {
+            return getFilms(after, limit);
+        }
+        if (after != null) {
+            log.warn("В запросе фильмов after передан вместе с датами выхода или сортировкой");
+            throw new ValidationException("Параметр after нельзя сочетать с releasedFrom, releasedTo и sort");
+        }
+        if (sort != null && !SORT_POPULAR.equals(sort)) {
+            log.warn("В запросе фильмов передана неизвестная сортировка - {}", sort);
+            throw new ValidationException("Параметр sort может быть только " + SORT_POPULAR);
+        }
+        if (releasedFrom != null && releasedTo != null && releasedFrom.isAfter(releasedTo)) {
+            log.warn("В запросе фильмов releasedFrom {} позже releasedTo {}", releasedFrom, releasedTo);
+            throw new ValidationException("Параметр releasedFrom не может быть позже releasedTo");
+        }
+        return filmStorage.getFilmsReleasedBetween(releasedFrom, releasedTo, sort != null, Limits.checkLimit(limit));
+    }
+
+    public List<FilmSummary> getFilmSummaries(Long after, Integer limit, LocalDate releasedFrom, LocalDate releasedTo,
+                                              String sort) {
+        return getFilms(after, limit, releasedFrom, releasedTo, sort).stream().map(FilmSummary::of).toList();
+    }
+
     public Film getFilmById(Long id) {
         return filmStorage.getFilm(id).orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден"));
     }
 
     public Film createFilm(Film film) {
         log.info("Добавлен фильм: {}", film);
-        return filmStorage.addFilm(film);
+        Film created = filmStorage.addFilm(film);
+        versions.filmChanged(created.getId());
+        return created;
 
     }
 
@@ -47,32 +99,136 @@ public class FilmService {
                     return new NotFoundException("Фильм с id " + newFilm.getId() + " не найден");
                 });
 
-        return filmStorage.updateFilm(newFilm);
+        Film updated = filmStorage.updateFilm(newFilm);
+        versions.filmChanged(newFilm.getId());
+        return updated;
     }
 
     public void likeFilm(Long filmId, Long userId) {
-        if (!getFilmById(filmId).getUsersLikes().add(userService.getUserById(userId).getId())) {
+        Film film = getFilmById(filmId);
+        User user = userService.getUserById(userId);
+
+        if (!changeLike(film.getId(), user.getId(), true)) {
             log.warn("Пользователь с id {} уже ставил лайк фильму с id {}", userId, filmId);
             throw new OtherException("Пользователь уже ставил лайк фильму");
         }
+        trends.liked(film.getId());
 
         log.info("Пользователь с id {} поставил лайк фильму с id {}", userId, filmId);
     }
 
     public void removeLikeFilm(Long filmId, Long userId) {
-        if (!getFilmById(filmId).getUsersLikes().remove(userService.getUserById(userId).getId())) {
+        Film film = getFilmById(filmId);
+        User user = userService.getUserById(userId);
+
+        if (!changeLike(film.getId(), user.getId(), false)) {
             log.warn("Пользователь с id {} не ставил лайк фильму id {}", userId, filmId);
             throw new OtherException("Пользователь не ставил лайк фильму");
         }
+        trends.unliked(film.getId());
 
         log.info("Пользователь с id {} удалил свой лайк у фильма с id {}", userId, filmId);
     }
 
+    // Событие публикуется под блокировкой фильма, когда лайк уже записан (в журнал или базу — до конца)
+    // и версия фильма повышена: события одного фильма идут в порядке изменений, а подписчик, получивший
+    // событие, не получит старый фильм по прежнему ETag. false — лайк уже стоял или его и не было
+    private boolean changeLike(long filmId, long userId, boolean add) {
+        return likeLocks.withLock(filmId, () -> {
+            if (!(add ? likeWriter.addLike(filmId, userId) : likeWriter.removeLike(filmId, userId))) {
+                return false;
+            }
+            versions.filmChanged(filmId);
+            coLikes.likeChanged(filmId, userId, add);
+            if (add) {
+                changes.likeAdded(filmId, userId);
+            } else {
+                changes.likeRemoved(filmId, userId);
+            }
+            return true;
+        });
+    }
+
     public Collection<Film> getPopularFilms(int count) {
-        return filmStorage.getFilms().stream().sorted(filmComparator).limit(count).toList();
+        return filmStorage.getPopularFilms(count);
+    }
+
+    public Collection<FilmSummary> getPopularFilmSummaries(int count) {
+        return filmStorage.getPopularFilmSummaries(count);
+    }
+
+    public Collection<Film> searchFilms(String query, Integer limit, boolean boostLikes) {
+        if (query == null || query.isBlank()) {
+            log.warn("В запросе поиска фильмов не передан текст");
+            throw new ValidationException("Параметр q не может быть пустым");
+        }
+        return filmStorage.searchFilms(query, Limits.checkLimit(limit, DEFAULT_SEARCH_RESULTS), boostLikes);
+    }
+
+    public List<FilmSummary> searchFilmSummaries(String query, Integer limit, boolean boostLikes) {
+        return searchFilms(query, limit, boostLikes).stream().map(FilmSummary::of).toList();
+    }
+
+    // Фильмы по убыванию суммы совместных лайков с фильмами пользователя, при равенстве — по возрастанию id.
+    // FilmCoLikes помнит только последние лайки пользователя, поэтому фильмы, лайкнутые раньше, отсеиваются
+    // здесь, и у очень активного пользователя рекомендаций может оказаться меньше limit
+    public List<FilmRecommendation> getRecommendedFilms(Long userId, Integer limit) {
+        long id = userService.getUserById(userId).getId();
+        int k = Limits.checkLimit(limit, DEFAULT_RECOMMENDATIONS);
+        LongIntTopK top = coLikes.recommend(id, k);
+        int[] scores = new int[top.size()];
+        long[] filmIds = top.drain(scores);
+        List<FilmRecommendation> result = new ArrayList<>(filmIds.length);
+        for (int i = 0; i < filmIds.length; i++) {
+            int score = scores[i];
+            filmStorage.getFilm(filmIds[i])
+                    .filter(film -> !film.getUsersLikes().contains(id))
+                    .ifPresent(film -> result.add(new FilmRecommendation(FilmSummary.of(film), score)));
+        }
+        return result;
+    }
+
+    // window — hour, day или week (число лайков за окно) либо decayed (оценка с затуханием); по умолчанию day
+    public Collection<Film> getTrendingFilms(String window, int count) {
+        if (count <= 0) {
+            log.warn("В запросе трендов передан некорректный count - {}", count);
+            throw new ValidationException("Параметр count должен быть положительным");
+        }
+        LongIntTopK top;
+        if (DECAYED.equals(window)) {
+            top = trends.topDecayed(count);
+        } else {
+            top = trends.top(trendWindow(window), count);
+        }
+        List<Film> result = new ArrayList<>(top.size());
+        for (long id : top.drain(new int[top.size()])) {
+            filmStorage.getFilm(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public List<FilmSummary> getTrendingFilmSummaries(String window, int count) {
+        return getTrendingFilms(window, count).stream().map(FilmSummary::of).toList();
     }
 
     public void clearFilmsData() {
         filmStorage.clearData();
+        versions.filmsCleared();
+        coLikes.clear();
+        trends.clear();
     }
+
+    private static FilmTrends.Window trendWindow(String window) {
+        if (window == null) {
+            return FilmTrends.Window.DAY;
+        }
+        for (FilmTrends.Window value : FilmTrends.Window.values()) {
+            if (value.name().equalsIgnoreCase(window)) {
+                return value;
+            }
+        }
+        log.warn("В запросе трендов передано неизвестное окно - {}", window);
+        throw new ValidationException("Параметр window может быть hour, day, week или " + DECAYED);
+    }
+
 }
\ No newline at end of file
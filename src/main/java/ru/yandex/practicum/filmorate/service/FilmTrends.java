@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToIntFunction;
+
+/*
+ * Лайки фильмов за последний час, день и неделю и оценка с экспоненциальным затуханием.
+ *
+ * Каждое окно — кольцо корзин на примитивном массиве и сумма по нему. Окно скользит с точностью до корзины:
+ * при обращении кольцо доводится до текущей корзины, устаревшие корзины вычитаются из суммы и обнуляются.
+ * Это стоит не больше числа корзин, сколько бы лайков в них ни было.
+ *
+ * Считается чистое изменение: снятие лайка вычитается в момент снятия, даже если сам лайк был раньше окна,
+ * поэтому сумма может быть отрицательной. В выдачу попадают только фильмы с положительной суммой.
+ * Фильмы с нулевыми суммами всех окон и затухшей оценкой выбрасываются при построении выдачи.
+ *
+ * Выдача строится обходом всех фильмов с блокировкой каждого, поэтому готовый рейтинг каждого окна
+ * переиспользуется запросами в течение filmorate.trending.refresh (по умолчанию секунда): под нагрузкой обход
+ * идёт не чаще раза в этот период, а лайк попадает в выдачу с такой же задержкой.
+ *
+ * Счётчики живут только в памяти этого экземпляра: при запуске они пусты (время старых лайков нигде
+ * не хранится), а несколько экземпляров считают каждый свои лайки.
+ */
+@Component
+public class FilmTrends {
+
+    // оценка с затуханием сравнивается в LongIntTopK целыми тысячными
+    private static final double SCORE_SCALE = 1000;
+    private static final double FORGOTTEN_SCORE = 0.01;
+    // рейтинг оценки с затуханием хранится после рейтингов окон
+    private static final int DECAYED = Window.values().length;
+
+    public enum Window {
+        HOUR(Duration.ofMinutes(5), 12),
+        DAY(Duration.ofHours(1), 24),
+        WEEK(Duration.ofHours(6), 28);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(Duration bucket, int buckets) {
+            this.bucketMillis = bucket.toMillis();
+            this.buckets = buckets;
+        }
+    }
+
+    private final Clock clock;
+    // затухание за миллисекунду: за halfLife оценка уменьшается вдвое
+    private final double decayRate;
+    private final Map<Long, Trend> trends = new ConcurrentHashMap<>();
+    // все обращения к фильму, включая его вставку в trends и удаление оттуда, идут под блокировкой его полосы
+    private final StripedLocks locks = new StripedLocks(64);
+    private final long refreshMillis;
+    private final AtomicReferenceArray<Ranking> rankings = new AtomicReferenceArray<>(DECAYED + 1);
+    // увеличивается при очистке: рейтинги, построенные до неё, не отдаются
+    private final AtomicLong generation = new AtomicLong();
+
+    public FilmTrends(Clock clock, @Value("${filmorate.trending.half-life:24h}") Duration halfLife,
+                      @Value("${filmorate.trending.refresh:1s}") Duration refresh) {
+        if (halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("Период полураспада должен быть положительным: " + halfLife);
+        }
+        if (refresh.isNegative()) {
+            throw new IllegalArgumentException("Период обновления трендов не может быть отрицательным: " + refresh);
+        }
+        this.clock = clock;
+        this.decayRate = Math.log(2) / halfLife.toMillis();
+        this.refreshMillis = refresh.toMillis();
+    }
+
+    public void liked(long filmId) {
+        record(filmId, 1);
+    }
+
+    public void unliked(long filmId) {
+        record(filmId, -1);
+    }
+
+    // Не больше count фильмов с наибольшим числом лайков за окно; при равенстве выше меньший id
+    public LongIntTopK top(Window window, int count) {
+        int w = window.ordinal();
+        return ranking(w, count, trend -> trend.totals[w]).top(count);
+    }
+
+    // То же по оценке с затуханием; значения в top — тысячные доли оценки
+    public LongIntTopK topDecayed(int count) {
+        return ranking(DECAYED, count,
+                trend -> (int) Math.min(Math.round(trend.score * SCORE_SCALE), Integer.MAX_VALUE)).top(count);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        trends.clear();
+    }
+
+    // Готовый рейтинг, если он построен недавно, после последней очистки и не короче count, иначе новый.
+    // Одновременные запросы могут построить его одновременно — остаётся любой из равноценных
+    private Ranking ranking(int slot, int count, ToIntFunction<Trend> value) {
+        long now = clock.millis();
+        long gen = generation.get();
+        Ranking ranking = rankings.get(slot);
+        if (ranking != null && ranking.generation() == gen && count <= ranking.capacity()
+                && now >= ranking.builtAt() && now - ranking.builtAt() < refreshMillis) {
+            return ranking;
+        }
+        int capacity = ranking == null ? count : Math.max(count, ranking.capacity());
+        LongIntTopK top = new LongIntTopK(Math.min(capacity, trends.size()));
+        for (Long filmId : trends.keySet()) {
+            int score = locks.withLock(filmId, () -> {
+                Trend trend = current(filmId, now);
+                return trend == null ? 0 : value.applyAsInt(trend);
+            });
+            if (score > 0) {
+                top.offer(filmId, score);
+            }
+        }
+        int[] scores = new int[top.size()];
+        ranking = new Ranking(top.drain(scores), scores, capacity, now, gen);
+        rankings.set(slot, ranking);
+        return ranking;
+    }
+
+    private void record(long filmId, int delta) {
+        long now = clock.millis();
+        locks.withLock(filmId, () -> {
+            Trend trend = trends.computeIfAbsent(filmId, id -> new Trend(now));
+            trend.add(now, delta, decayRate);
+            return null;
+        });
+    }
+
+    // Доводит окна и оценку фильма до now; забытый фильм удаляет и возвращает null
+    private Trend current(long filmId, long now) {
+        Trend trend = trends.get(filmId);
+        if (trend == null) {
+            return null;
+        }
+        trend.advance(now, decayRate);
+        if (trend.isForgotten()) {
+            trends.remove(filmId);
+            return null;
+        }
+        return trend;
+    }
+
+    // Фильмы от лучшего к худшему; capacity — сколько их отбиралось
+    private record Ranking(long[] filmIds, int[] scores, int capacity, long builtAt, long generation) {
+
+        LongIntTopK top(int count) {
+            LongIntTopK top = new LongIntTopK(Math.min(count, filmIds.length));
+            for (int i = 0; i < filmIds.length && i < count; i++) {
+                top.offer(filmIds[i], scores[i]);
+            }
+            return top;
+        }
+    }
+
+    private static final class Trend {
+
+        private final int[][] rings = new int[Window.values().length][];
+        private final int[] totals = new int[rings.length];
+        // номер самой новой корзины каждого окна, считая от начала эпохи
+        private final long[] heads = new long[rings.length];
+        private double score;
+        private long scoredAt;
+
+        Trend(long now) {
+            for (Window window : Window.values()) {
+                rings[window.ordinal()] = new int[window.buckets];
+                heads[window.ordinal()] = now / window.bucketMillis;
+            }
+            scoredAt = now;
+        }
+
+        void add(long now, int delta, double decayRate) {
+            advance(now, decayRate);
+            for (Window window : Window.values()) {
+                int w = window.ordinal();
+                rings[w][(int) (heads[w] % window.buckets)] += delta;
+                totals[w] += delta;
+            }
+            score += delta;
+        }
+
+        // Часы, отошедшие назад, не сдвигают окна: лайк попадает в самую новую корзину
+        void advance(long now, double decayRate) {
+            for (Window window : Window.values()) {
+                int w = window.ordinal();
+                long bucket = now / window.bucketMillis;
+                long steps = Math.min(bucket - heads[w], window.buckets);
+                for (long step = 1; step <= steps; step++) {
+                    int index = (int) ((heads[w] + step) % window.buckets);
+                    totals[w] -= rings[w][index];
+                    rings[w][index] = 0;
+                }
+                heads[w] = Math.max(heads[w], bucket);
+            }
+            if (now > scoredAt) {
+                score *= Math.exp(-decayRate * (now - scoredAt));
+                scoredAt = now;
+            }
+        }
+
+        boolean isForgotten() {
+            for (int total : totals) {
+                if (total != 0) {
+                    return false;
+                }
+            }
+            return Math.abs(score) < FORGOTTEN_SCORE;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Запись лайков в хранилище. В режиме sync лайк пишется в потоке запроса, как раньше.
+ * В режиме batched лайк попадает в очередь полосы своего фильма (id % writer-shards). У полосы один поток-писатель:
+ * он забирает всё, что накопилось, и применяет пачкой — один changeLikes на фильм, то есть одна блокировка фильма
+ * и одно ожидание журнала на пачку. Потоки запросов ждут результат своего изменения, поэтому о повторном лайке
+ * по-прежнему сообщается вызывающему. FilmService передаёт лайки одного фильма по одному (события ленты идут
+ * в порядке изменений), поэтому пачку от него составляют лайки разных фильмов полосы.
+ */
+@Slf4j
+@Component
+public class LikeWriter implements DisposableBean {
+
+    public static final String SYNC = "sync";
+    public static final String BATCHED = "batched";
+
+    private static final int MAX_BATCH = 1024;
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final FilmStorage filmStorage;
+    // null в режиме sync
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    public LikeWriter(FilmStorage filmStorage, @Value("${filmorate.likes.mode:sync}") String mode,
+                      @Value("${filmorate.likes.writer-shards:4}") int shards) {
+        this.filmStorage = filmStorage;
+        switch (mode) {
+            case SYNC -> this.shards = null;
+            case BATCHED -> {
+                if (shards <= 0) {
+                    throw new IllegalArgumentException("Число полос записи лайков должно быть положительным: "
+                            + shards);
+                }
+                this.shards = new Shard[shards];
+                for (int i = 0; i < shards; i++) {
+                    this.shards[i] = new Shard("like-writer-" + i);
+                }
+            }
+            default -> throw new IllegalArgumentException("Неизвестный режим записи лайков: " + mode);
+        }
+    }
+
+    // false — пользователь уже ставил лайк фильму
+    public boolean addLike(long filmId, long userId) {
+        return change(filmId, userId, true);
+    }
+
+    // false — пользователь не ставил лайк фильму
+    public boolean removeLike(long filmId, long userId) {
+        return change(filmId, userId, false);
+    }
+
+    // Дописывает уже принятые лайки и останавливает писателей; то, что писатель не успел забрать, дописывается здесь.
+    // Если писатель за STOP_TIMEOUT_MILLIS так и не остановился, ждущие его запросы получают 503, а не висят
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (shards == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.writer);
+        }
+        for (Shard shard : shards) {
+            shard.writer.join(STOP_TIMEOUT_MILLIS);
+        }
+        for (Shard shard : shards) {
+            if (shard.writer.isAlive()) {
+                shard.abandon();
+            } else {
+                shard.drain();
+            }
+        }
+    }
+
+    private boolean change(long filmId, long userId, boolean add) {
+        if (shards == null || !running) {
+            return add ? filmStorage.addLike(filmId, userId) : filmStorage.removeLike(filmId, userId);
+        }
+        Change change = new Change(filmId, userId, add, new CompletableFuture<>());
+        Shard shard = shards[(int) Math.floorMod(filmId, (long) shards.length)];
+        shard.submit(change);
+        // писатель мог остановиться между проверкой running и постановкой в очередь: тогда изменение забирается
+        // обратно и пишется здесь же; если забрать не вышло, его уже взял писатель или destroy
+        if (!running && shard.queue.remove(change)) {
+            return add ? filmStorage.addLike(filmId, userId) : filmStorage.removeLike(filmId, userId);
+        }
+        try {
+            return change.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void apply(List<Change> batch) {
+        Map<Long, List<Change>> byFilm = new LinkedHashMap<>();
+        for (Change change : batch) {
+            byFilm.computeIfAbsent(change.filmId(), id -> new ArrayList<>()).add(change);
+        }
+        byFilm.forEach((filmId, changes) -> {
+            long[] userIds = new long[changes.size()];
+            boolean[] add = new boolean[changes.size()];
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = changes.get(i).userId();
+                add[i] = changes.get(i).add();
+            }
+            try {
+                boolean[] changed = filmStorage.changeLikes(filmId, userIds, add);
+                for (int i = 0; i < changed.length; i++) {
+                    changes.get(i).result().complete(changed[i]);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать {} изменений лайков фильма с id {}", changes.size(), filmId, e);
+                changes.forEach(change -> change.result().completeExceptionally(e));
+            }
+        });
+    }
+
+    private record Change(long filmId, long userId, boolean add, CompletableFuture<Boolean> result) {
+    }
+
+    private final class Shard {
+
+        private final Queue<Change> queue = new ConcurrentLinkedQueue<>();
+        private final Thread writer;
+        // пачка, которую писатель применяет сейчас; после публикации не меняется
+        private volatile List<Change> applying;
+        // писатель спит или собирается уснуть; только тогда поток запроса его будит
+        private volatile boolean waiting;
+
+        Shard(String name) {
+            writer = new Thread(this::run, name);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        void submit(Change change) {
+            queue.offer(change);
+            if (waiting) {
+                LockSupport.unpark(writer);
+            }
+        }
+
+        private void run() {
+            List<Change> batch = new ArrayList<>();
+            while (running || !queue.isEmpty()) {
+                Change change;
+                while (batch.size() < MAX_BATCH && (change = queue.poll()) != null) {
+                    batch.add(change);
+                }
+                if (batch.isEmpty()) {
+                    waiting = true;
+                    // очередь проверяется ещё раз после waiting: лайк, добавленный до этого, не останется без писателя
+                    if (running && queue.isEmpty()) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                applying = batch;
+                applySafely(batch);
+                applying = null;
+                batch = new ArrayList<>();
+            }
+        }
+
+        // Забирает и применяет всё, что осталось в очереди, в текущем потоке
+        void drain() {
+            List<Change> batch = new ArrayList<>();
+            Change change;
+            while ((change = queue.poll()) != null) {
+                batch.add(change);
+            }
+            if (!batch.isEmpty()) {
+                applySafely(batch);
+            }
+        }
+
+        // Завершает ошибкой и текущую пачку зависшего писателя: применит ли он её, неизвестно
+        void abandon() {
+            ServiceUnavailableException e = new ServiceUnavailableException("Запись лайков остановлена", RETRY_AFTER);
+            int abandoned = 0;
+            List<Change> batch = applying;
+            if (batch != null) {
+                for (Change change : batch) {
+                    abandoned += change.result().completeExceptionally(e) ? 1 : 0;
+                }
+            }
+            Change change;
+            while ((change = queue.poll()) != null) {
+                abandoned += change.result().completeExceptionally(e) ? 1 : 0;
+            }
+            log.error("Писатель {} не остановился за {} мс, не дождались записи {} изменений лайков",
+                    writer.getName(), STOP_TIMEOUT_MILLIS, abandoned);
+        }
+
+        // Ошибка вроде OutOfMemoryError не должна убить писателя и оставить потоки запросов ждать вечно
+        private void applySafely(List<Change> batch) {
+            try {
+                apply(batch);
+            } catch (Throwable e) {
+                log.error("Не удалось записать пачку из {} изменений лайков", batch.size(), e);
+                batch.forEach(change -> change.result().completeExceptionally(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+@Slf4j
+final class Limits {
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private Limits() {
+    }
+
+    static int checkLimit(Integer limit) {
+        return checkLimit(limit, DEFAULT_PAGE_SIZE);
+    }
+
+    static int checkLimit(Integer limit, int defaultLimit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit <= 0) {
+            log.warn("В запросе передан некорректный limit - {}", limit);
+            throw new ValidationException("Параметр limit должен быть положительным");
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongIntHashMap;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * k друзей друзей с наибольшим числом общих друзей:
+ * 1. списки друзей всех друзей загружаются одним вызовом хранилища (в базе — одним запросом);
+ * 2. кандидаты делятся по хэшу id на столько частей, сколько потоков в ForkJoinPool. Каждая задача просматривает
+ *    все списки, но считает только свои id в свою примитивную таблицу и сама отбирает из неё k лучших.
+ *    Таблицы с миллионами кандидатов не сливаются — объединяются только k лучших каждой части.
+ */
+final class MutualFriendsRanking {
+
+    // Сколько путей длины 2 просматривается, чтобы оценить число различных кандидатов
+    static final int SAMPLE_PATHS = 4096;
+    // Таблица больше этого не выделяется заранее, дальше она растёт по мере надобности
+    private static final int MAX_INITIAL_CAPACITY = 1 << 20;
+
+    private MutualFriendsRanking() {
+    }
+
+    // Вне пула первая часть считается в текущем потоке, остальные — в общем ForkJoinPool
+    static LongIntTopK top(UserStorage userStorage, long userId, long[] friends, int k) {
+        long[][] friendsOfFriends = userStorage.getFriendIds(friends);
+        long paths = 0;
+        for (long[] list : friendsOfFriends) {
+            paths += list.length;
+        }
+
+        int partitions = ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+        int expectedPerPartition = (int) Math.min(estimateCandidates(friendsOfFriends, paths) / partitions + 1,
+                MAX_INITIAL_CAPACITY);
+        List<CountPartition> tasks = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            tasks.add(new CountPartition(userId, friends, friendsOfFriends, partition, partitions,
+                    expectedPerPartition, k));
+        }
+        LongIntTopK top = new LongIntTopK((int) Math.min(k, paths));
+        for (CountPartition task : ForkJoinTask.invokeAll(tasks)) {
+            top.offerAll(task.join());
+        }
+        return top;
+    }
+
+    // Доля различных id в равномерной выборке путей, перенесённая на все пути. В плотной компании кандидатов
+    // намного меньше, чем путей, и оценка это видит; при повторах за пределами выборки она завышена, но не выше paths
+    static long estimateCandidates(long[][] friendsOfFriends, long paths) {
+        if (paths <= SAMPLE_PATHS) {
+            return paths;
+        }
+        long step = paths / SAMPLE_PATHS;
+        LongIntHashMap sample = new LongIntHashMap(SAMPLE_PATHS);
+        long sampled = 0;
+        long next = 0;
+        long position = 0;
+        for (long[] list : friendsOfFriends) {
+            for (; next < position + list.length; next += step) {
+                sample.add(list[(int) (next - position)], 1);
+                sampled++;
+            }
+            position += list.length;
+        }
+        return paths * sample.size() / sampled;
+    }
+
+    private static final class CountPartition extends RecursiveTask<LongIntTopK> {
+
+        private final long userId;
+        private final long[] friends;
+        private final long[][] friendsOfFriends;
+        private final int partition;
+        private final int partitions;
+        private final int expectedSize;
+        private final int k;
+
+        CountPartition(long userId, long[] friends, long[][] friendsOfFriends, int partition, int partitions,
+                       int expectedSize, int k) {
+            this.userId = userId;
+            this.friends = friends;
+            this.friendsOfFriends = friendsOfFriends;
+            this.partition = partition;
+            this.partitions = partitions;
+            this.expectedSize = expectedSize;
+            this.k = k;
+        }
+
+        @Override
+        protected LongIntTopK compute() {
+            LongIntHashMap counts = new LongIntHashMap(expectedSize);
+            // сам пользователь и его друзья уходят в минус: общих друзей у кандидата не больше friends.length
+            int excluded = -(friends.length + 1);
+            if (owns(userId)) {
+                counts.add(userId, excluded);
+            }
+            for (long friendId : friends) {
+                if (owns(friendId)) {
+                    counts.add(friendId, excluded);
+                }
+            }
+            for (long[] list : friendsOfFriends) {
+                for (long candidate : list) {
+                    if (owns(candidate)) {
+                        counts.add(candidate, 1);
+                    }
+                }
+            }
+            LongIntTopK top = new LongIntTopK(Math.min(k, counts.size()));
+            counts.forEach((candidate, mutualFriends) -> {
+                if (mutualFriends > 0) {
+                    top.offer(candidate, mutualFriends);
+                }
+            });
+            return top;
+        }
+
+        // Множитель отличается от хэша в LongIntHashMap, иначе id одной части скучились бы в таблице
+        private boolean owns(long id) {
+            return partitions == 1 || (int) (((id * 0xC2B2AE3D27D4EB4FL) >>> 33) % partitions) == partition;
+        }
+    }
+}
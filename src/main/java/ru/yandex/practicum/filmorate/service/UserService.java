@@ -6,21 +6,45 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.OtherException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
+    private static final int DEFAULT_RECOMMENDATIONS = 10;
+
     private final UserStorage userStorage;
+    private final EntityVersions versions;
+    private final FilmCoLikes coLikes;
+    private final ChangeFeed changes;
+    private final StripedLocks friendshipLocks = new StripedLocks(64);
 
     public Collection<User> getAllUsers() {
         return userStorage.getUsers();
     }
 
+    // Без after и limit возвращает всех пользователей, как раньше
+    public Collection<User> getUsers(Long after, Integer limit) {
+        if (after == null && limit == null) {
+            return getAllUsers();
+        }
+        return userStorage.getUsers(after == null ? 0 : after, Limits.checkLimit(limit));
+    }
+
+    public List<UserSummary> getUserSummaries(Long after, Integer limit) {
+        return getUsers(after, limit).stream().map(UserSummary::of).toList();
+    }
+
     public User getUserById(Long id) {
         return userStorage.getUser(id).orElseThrow(() -> new NotFoundException("Юзер с id " + id + " не найден"));
     }
@@ -32,7 +56,9 @@ public class UserService {
                     user.getLogin());
         }
 
-        return userStorage.addUser(user);
+        User created = userStorage.addUser(user);
+        versions.userChanged(created.getId());
+        return created;
     }
 
     public User updateUser(User newUser) {
@@ -53,19 +79,21 @@ public class UserService {
                     newUser.getLogin());
         }
 
-        return userStorage.updateUser(newUser);
+        User updated = userStorage.updateUser(newUser);
+        versions.userChanged(newUser.getId(), userStorage.getFriendIds(newUser.getId()));
+        return updated;
     }
 
     public void addFriend(Long id, Long friendId) {
-        User user = getUserById(id);
-        User friend = getUserById(friendId);
+        getUserById(id);
+        getUserById(friendId);
 
         if (id.equals(friendId)) {
             log.warn("Пользователь не может добавить сам себя в друзья");
             throw new OtherException("Пользователь не может добавить сам себя в друзья");
         }
 
-        if (!user.getFriends().add(friendId) || !friend.getFriends().add(id)) {
+        if (!changeFriendship(id, friendId, true)) {
             log.warn("Пользователи с id {} и id {} уже являются друзьями", id, friendId);
             throw new OtherException("Пользователи уже являются друзьями");
         }
@@ -74,28 +102,92 @@ public class UserService {
     }
 
     public void removeFriend(Long id, Long friendId) {
-        User user = getUserById(id);
-        User friend = getUserById(friendId);
+        getUserById(id);
+        getUserById(friendId);
 
-        if (!user.getFriends().remove(friendId) || !friend.getFriends().remove(id)) {
+        if (!changeFriendship(id, friendId, false)) {
             log.warn("У пользователя с id {} не найден друг с id {}", id, friendId);
         }
 
         log.info("Пользователь с id {} удалил из друзей пользователя с id {}", id, friendId);
     }
 
+    // Как лайки в FilmService: событие публикуется под блокировкой пары, когда дружба уже записана до конца
+    // и версии обоих пользователей повышены. Пара блокируется по меньшему id, так что addFriend(A, B)
+    // и addFriend(B, A) берут одну блокировку. false — ничего не изменилось
+    private boolean changeFriendship(long id, long friendId, boolean add) {
+        return friendshipLocks.withLock(Math.min(id, friendId), () -> {
+            if (!(add ? userStorage.addFriend(id, friendId) : userStorage.removeFriend(id, friendId))) {
+                return false;
+            }
+            // друг входит в набор друзей обоих пользователей
+            versions.friendshipChanged(id, friendId, userStorage.getFriendIds(id),
+                    userStorage.getFriendIds(friendId));
+            if (add) {
+                changes.friendAdded(id, friendId);
+            } else {
+                changes.friendRemoved(id, friendId);
+            }
+            return true;
+        });
+    }
+
     public Collection<User> getUserFriends(Long id) {
-        return getUserById(id).getFriends().stream()
-                .map(this::getUserById).toList();
+        return toUsers(userStorage.getFriendIds(getUserById(id).getId()));
+    }
+
+    public Collection<User> getUserFriends(Long id, Long after, Integer limit) {
+        if (after == null && limit == null) {
+            return getUserFriends(id);
+        }
+        long userId = getUserById(id).getId();
+        return toUsers(userStorage.getFriendIds(userId, after == null ? 0 : after, Limits.checkLimit(limit)));
+    }
+
+    public List<UserSummary> getUserFriendSummaries(Long id, Long after, Integer limit) {
+        long userId = getUserById(id).getId();
+        long[] friendIds = after == null && limit == null
+                ? userStorage.getFriendIds(userId)
+                : userStorage.getFriendIds(userId, after == null ? 0 : after, Limits.checkLimit(limit));
+        return userStorage.getUserSummaries(friendIds);
     }
 
     public Collection<User> getCommonUserFriends(Long id, Long otherId) {
-        return getUserById(id).getFriends().stream()
-                .filter(getUserById(otherId).getFriends()::contains)
-                .map(this::getUserById).toList();
+        return toUsers(userStorage.getCommonFriendIds(getUserById(id).getId(), getUserById(otherId).getId()));
+    }
+
+    // Друзья друзей по убыванию числа общих друзей, при равенстве — по возрастанию id
+    public List<FriendRecommendation> getRecommendations(Long id, Integer limit) {
+        long userId = getUserById(id).getId();
+        int k = Limits.checkLimit(limit, DEFAULT_RECOMMENDATIONS);
+        LongIntTopK top = MutualFriendsRanking.top(userStorage, userId, userStorage.getFriendIds(userId), k);
+        int[] mutualFriends = new int[top.size()];
+        long[] candidates = top.drain(mutualFriends);
+        List<UserSummary> users = userStorage.getUserSummaries(candidates);
+        // пользователя могли удалить после подсчёта, тогда его нет в users
+        List<FriendRecommendation> result = new ArrayList<>(users.size());
+        for (int i = 0, j = 0; i < candidates.length && j < users.size(); i++) {
+            if (users.get(j).id() == candidates[i]) {
+                result.add(new FriendRecommendation(users.get(j++), mutualFriends[i]));
+            }
+        }
+        return result;
     }
 
     public void clearUsersData() {
         userStorage.clearData();
+        versions.usersCleared();
+        // совместные лайки строятся заново из хранилища: в базе лайки удалены вместе с пользователями,
+        // а в памяти остаются у фильмов
+        coLikes.clear();
+    }
+
+
+    private List<User> toUsers(long[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (long userId : ids) {
+            result.add(getUserById(userId));
+        }
+        return result;
     }
 }
\ No newline at end of file
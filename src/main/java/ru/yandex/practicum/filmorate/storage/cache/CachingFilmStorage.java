@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+// Кэширует фильмы по id; списки и страницы читаются из хранилища напрямую.
+// Запись сначала идёт в хранилище, затем запись кэша удаляется. Если в этот момент тот же id загружается,
+// удаляется его незавершённый future: Caffeine не возвращает в кэш future, которого там уже нет,
+// поэтому загруженное до записи старое значение получит только сам загружавший запрос
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+    private final AsyncCache<Long, Film> films;
+
+    public CachingFilmStorage(FilmStorage delegate, EntityCaches caches) {
+        this.delegate = delegate;
+        this.films = caches.films();
+    }
+
+    public Film addFilm(Film film) {
+        return delegate.addFilm(film);
+    }
+
+    public Film updateFilm(Film film) {
+        try {
+            return delegate.updateFilm(film);
+        } finally {
+            films.synchronous().invalidate(film.getId());
+        }
+    }
+
+    public Collection<Film> getFilms() {
+        return delegate.getFilms();
+    }
+
+    public Collection<Film> getFilms(long after, int limit) {
+        return delegate.getFilms(after, limit);
+    }
+
+    public Optional<Film> getFilm(Long id) {
+        return Optional.ofNullable(EntityCaches.get(films, id, key -> delegate.getFilm(key).orElse(null)));
+    }
+
+    // Лайки входят в закэшированный фильм, поэтому он тоже сбрасывается
+    public boolean addLike(Long filmId, Long userId) {
+        try {
+            return delegate.addLike(filmId, userId);
+        } finally {
+            films.synchronous().invalidate(filmId);
+        }
+    }
+
+    public boolean removeLike(Long filmId, Long userId) {
+        try {
+            return delegate.removeLike(filmId, userId);
+        } finally {
+            films.synchronous().invalidate(filmId);
+        }
+    }
+
+    public boolean hasLike(Long filmId, Long userId) {
+        return delegate.hasLike(filmId, userId);
+    }
+
+    public boolean[] changeLikes(Long filmId, long[] userIds, boolean[] add) {
+        try {
+            return delegate.changeLikes(filmId, userIds, add);
+        } finally {
+            films.synchronous().invalidate(filmId);
+        }
+    }
+
+    public Collection<Film> getPopularFilms(int count) {
+        return delegate.getPopularFilms(count);
+    }
+
+    public Collection<FilmSummary> getPopularFilmSummaries(int count) {
+        return delegate.getPopularFilmSummaries(count);
+    }
+
+    public Collection<Film> getFilmsReleasedBetween(LocalDate from, LocalDate to, boolean byPopularity, int limit) {
+        return delegate.getFilmsReleasedBetween(from, to, byPopularity, limit);
+    }
+
+    public Collection<Film> searchFilms(String query, int limit, boolean boostLikes) {
+        return delegate.searchFilms(query, limit, boostLikes);
+    }
+
+    public void clearData() {
+        try {
+            delegate.clearData();
+        } finally {
+            films.synchronous().invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Кэширует пользователей по id так же, как CachingFilmStorage фильмы
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+    private final AsyncCache<Long, User> users;
+    private final AsyncCache<Long, Film> films;
+
+    public CachingUserStorage(UserStorage delegate, EntityCaches caches) {
+        this.delegate = delegate;
+        this.users = caches.users();
+        this.films = caches.films();
+    }
+
+    public User addUser(User user) {
+        return delegate.addUser(user);
+    }
+
+    public User updateUser(User user) {
+        try {
+            return delegate.updateUser(user);
+        } finally {
+            users.synchronous().invalidate(user.getId());
+        }
+    }
+
+    public Collection<User> getUsers() {
+        return delegate.getUsers();
+    }
+
+    public Collection<User> getUsers(long after, int limit) {
+        return delegate.getUsers(after, limit);
+    }
+
+    public Optional<User> getUser(Long id) {
+        return Optional.ofNullable(EntityCaches.get(users, id, key -> delegate.getUser(key).orElse(null)));
+    }
+
+    // Друзья входят в закэшированного пользователя, а дружба взаимная, поэтому сбрасываются оба
+    public boolean addFriend(Long userId, Long friendId) {
+        try {
+            return delegate.addFriend(userId, friendId);
+        } finally {
+            users.synchronous().invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    public boolean removeFriend(Long userId, Long friendId) {
+        try {
+            return delegate.removeFriend(userId, friendId);
+        } finally {
+            users.synchronous().invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    public long[] getFriendIds(Long userId) {
+        return delegate.getFriendIds(userId);
+    }
+
+    public long[] getFriendIds(Long userId, long after, int limit) {
+        return delegate.getFriendIds(userId, after, limit);
+    }
+
+    public long[][] getFriendIds(long[] userIds) {
+        return delegate.getFriendIds(userIds);
+    }
+
+    public long[] getCommonFriendIds(Long userId, Long otherId) {
+        return delegate.getCommonFriendIds(userId, otherId);
+    }
+
+    public List<UserSummary> getUserSummaries(long[] ids) {
+        return delegate.getUserSummaries(ids);
+    }
+
+    // Вместе с пользователями удаляются их лайки, поэтому закэшированные фильмы тоже устаревают
+    public void clearData() {
+        try {
+            delegate.clearData();
+        } finally {
+            users.synchronous().invalidateAll();
+            films.synchronous().invalidateAll();
+        }
+    }
+}
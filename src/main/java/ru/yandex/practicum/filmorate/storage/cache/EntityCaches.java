@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Кэши фильмов и пользователей по id с вытеснением W-TinyLFU по размеру.
+// Кэши асинхронные: синхронный Cache.get загружает значение внутри ConcurrentHashMap.compute, и запрос
+// к базе на виртуальном потоке закрепил бы поток-носитель. Здесь под блокировкой ключа в кэш кладётся
+// только незавершённый future, а загрузка идёт уже снаружи
+public class EntityCaches {
+
+    private final AsyncCache<Long, Film> films;
+    private final AsyncCache<Long, User> users;
+
+    public EntityCaches(long maximumSize) {
+        this.films = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().buildAsync();
+        this.users = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().buildAsync();
+    }
+
+    AsyncCache<Long, Film> films() {
+        return films;
+    }
+
+    AsyncCache<Long, User> users() {
+        return users;
+    }
+
+    // Загружает значение в вызывающем потоке; параллельные запросы того же id ждут этот же future.
+    // null не кэшируется: Caffeine удаляет запись, future которой завершился с null
+    static <V> V get(AsyncCache<Long, V> cache, Long id, Function<Long, V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(id, (key, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(id));
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public Map<String, Map<String, Number>> stats() {
+        Map<String, Map<String, Number>> result = new LinkedHashMap<>();
+        result.put("films", stats(films.synchronous()));
+        result.put("users", stats(users.synchronous()));
+        return result;
+    }
+
+    private static Map<String, Number> stats(Cache<Long, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Number> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+// Хранилища в памяти кэшировать незачем, кэш ставится только перед базой данных
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+public class StorageCacheConfiguration {
+
+    @Bean
+    public EntityCaches entityCaches(@Value("${filmorate.cache.maximum-size:10000}") long maximumSize) {
+        return new EntityCaches(maximumSize);
+    }
+
+    @Bean
+    @Primary
+    public FilmStorage cachingFilmStorage(JdbcFilmStorage delegate, EntityCaches caches) {
+        return new CachingFilmStorage(delegate, caches);
+    }
+
+    @Bean
+    @Primary
+    public UserStorage cachingUserStorage(JdbcUserStorage delegate, EntityCaches caches) {
+        return new CachingUserStorage(delegate, caches);
+    }
+}
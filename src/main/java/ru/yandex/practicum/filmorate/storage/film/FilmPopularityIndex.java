@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Рейтинг фильмов по числу лайков: больше лайков — выше, при равенстве выше фильм с меньшим id
+class FilmPopularityIndex {
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingLong(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final Set<Rank> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    void add(long filmId, long likes) {
+        ranking.add(new Rank(likes, filmId));
+    }
+
+    // Вызывается под блокировкой фильма, поэтому oldLikes всегда соответствует текущей записи в индексе
+    void update(long filmId, long oldLikes, long newLikes) {
+        if (oldLikes == newLikes) {
+            return;
+        }
+        ranking.add(new Rank(newLikes, filmId));
+        ranking.remove(new Rank(oldLikes, filmId));
+    }
+
+    long[] top(int count) {
+        long[] result = new long[Math.max(count, 0)];
+        Set<Long> seen = new HashSet<>();
+        Iterator<Rank> iterator = ranking.iterator();
+        int size = 0;
+        while (size < result.length && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            // во время update фильм на мгновение присутствует в индексе дважды
+            if (seen.add(filmId)) {
+                result[size++] = filmId;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    void clear() {
+        ranking.clear();
+    }
+
+    private record Rank(long likes, long filmId) {
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+// Фильмы по дате выхода, при равной дате — по id. Фильмы без даты выхода в индекс не попадают
+class FilmReleaseIndex {
+
+    private static final Comparator<Release> ORDER = Comparator.comparingLong(Release::epochDay)
+            .thenComparingLong(Release::filmId);
+
+    private final NavigableSet<Release> releases = new ConcurrentSkipListSet<>(ORDER);
+
+    void add(long filmId, LocalDate releaseDate) {
+        if (releaseDate != null) {
+            releases.add(new Release(releaseDate.toEpochDay(), filmId));
+        }
+    }
+
+    /*
+     * Вызывается под блокировкой фильма. Старая запись удаляется раньше, чем добавляется новая:
+     * читатель на мгновение может не найти фильм, но не получит его дважды.
+     */
+    void update(long filmId, LocalDate oldDate, LocalDate newDate) {
+        if (Objects.equals(oldDate, newDate)) {
+            return;
+        }
+        if (oldDate != null) {
+            releases.remove(new Release(oldDate.toEpochDay(), filmId));
+        }
+        add(filmId, newDate);
+    }
+
+    /*
+     * Передаёт id фильмов с датой выхода от from до to включительно, пока consumer возвращает true;
+     * null — граница не задана. Поиск начала диапазона стоит O(log n), дальше — O(1) на фильм.
+     */
+    void scan(LocalDate from, LocalDate to, LongPredicate consumer) {
+        Release low = new Release(from == null ? Long.MIN_VALUE : from.toEpochDay(), Long.MIN_VALUE);
+        Release high = new Release(to == null ? Long.MAX_VALUE : to.toEpochDay(), Long.MAX_VALUE);
+        for (Release release : releases.subSet(low, true, high, true)) {
+            if (!consumer.test(release.filmId())) {
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        releases.clear();
+    }
+
+    private record Release(long epochDay, long filmId) {
+    }
+}
@@ -0,0 +1,268 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Обратный индекс по словам названия и описания фильма: слово -> отсортированные id фильмов и вес слова в фильме.
+ * Слово в названии весит NAME_WEIGHT, в описании — 1.
+ *
+ * Поиск находит фильмы, содержащие все слова запроса: идёт по самому короткому списку, а в остальных
+ * ищет тот же id галопирующим поиском, так что работа пропорциональна самому редкому слову запроса.
+ * Оценка — BM25 без нормировки по длине текста; с boostLikes она умножается на 1 + ln(1 + лайки).
+ *
+ * Списки читаются без блокировок: читатель берёт снимок (массивы и размер), а писатель либо дописывает в массив
+ * за пределами опубликованного размера, либо копирует массивы. Изменения одного слова идут под блокировкой его полосы.
+ */
+class FilmSearchIndex {
+
+    static final int NAME_WEIGHT = 3;
+
+    private static final double K1 = 1.2;
+    private static final int MAX_WEIGHT = Byte.MAX_VALUE;
+    // оценки считаются и сравниваются в LongIntTopK целыми тысячными
+    private static final double SCORE_SCALE = 1000;
+    private static final double[] LIKES_BOOST = new double[1024];
+    private static final int PAGE_BITS = 14;
+
+    static {
+        for (int likes = 0; likes < LIKES_BOOST.length; likes++) {
+            LIKES_BOOST[likes] = 1 + Math.log1p(likes);
+        }
+    }
+
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    private final StripedLocks termLocks = new StripedLocks(64);
+    private final AtomicInteger documents = new AtomicInteger();
+    // число лайков по id фильма, страницами по 2^PAGE_BITS: при поиске с boostLikes его читают для каждого кандидата
+    private final ReentrantLock pagesLock = new ReentrantLock();
+    private volatile int[][] likePages = new int[0][];
+
+    void add(long filmId, String name, String description, int likes) {
+        setLikes(filmId, likes);
+        weights(name, description).forEach((term, weight) -> insert(term, filmId, weight));
+        documents.incrementAndGet();
+    }
+
+    // Вызывается под блокировкой фильма, поэтому старый текст соответствует тому, что сейчас в индексе
+    void update(long filmId, String oldName, String oldDescription, String name, String description) {
+        Map<String, Integer> oldWeights = weights(oldName, oldDescription);
+        Map<String, Integer> newWeights = weights(name, description);
+        oldWeights.forEach((term, weight) -> {
+            if (!newWeights.containsKey(term)) {
+                remove(term, filmId);
+            }
+        });
+        newWeights.forEach((term, weight) -> {
+            if (!weight.equals(oldWeights.get(term))) {
+                insert(term, filmId, weight);
+            }
+        });
+    }
+
+    void likesChanged(long filmId, int likes) {
+        setLikes(filmId, likes);
+    }
+
+    // До limit id фильмов от лучшего к худшему; при равной оценке выше фильм с меньшим id
+    long[] search(String query, int limit, boolean boostLikes) {
+        List<String> terms = SearchTokenizer.tokens(query).stream().distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        Snapshot[] lists = new Snapshot[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            Postings list = postings.get(terms.get(i));
+            if (list == null) {
+                return new long[0];
+            }
+            lists[i] = list.snapshot;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(Snapshot::size));
+        int total = Math.max(documents.get(), lists[lists.length - 1].size());
+        int[][] scores = new int[lists.length][];
+        for (int i = 0; i < lists.length; i++) {
+            scores[i] = termScores(total, lists[i].size());
+        }
+
+        Snapshot driver = lists[0];
+        LongIntTopK top = new LongIntTopK(Math.min(limit, driver.size()));
+        int[] cursors = new int[lists.length];
+        candidates:
+        for (int i = 0; i < driver.size(); i++) {
+            long filmId = driver.ids()[i];
+            int score = scores[0][driver.weights()[i]];
+            for (int j = 1; j < lists.length; j++) {
+                Snapshot list = lists[j];
+                int position = advance(list, cursors[j], filmId);
+                cursors[j] = position;
+                if (position == list.size() || list.ids()[position] != filmId) {
+                    continue candidates;
+                }
+                score += scores[j][list.weights()[position]];
+            }
+            if (boostLikes) {
+                int likes = likes(filmId);
+                score = (int) (score * (likes < LIKES_BOOST.length ? LIKES_BOOST[likes] : 1 + Math.log1p(likes)));
+            }
+            top.offer(filmId, score);
+        }
+        return top.drain(new int[top.size()]);
+    }
+
+    void clear() {
+        postings.clear();
+        documents.set(0);
+        likePages = new int[0][];
+    }
+
+    private static Map<String, Integer> weights(String name, String description) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String term : SearchTokenizer.tokens(name)) {
+            weights.merge(term, NAME_WEIGHT, (a, b) -> Math.min(a + b, MAX_WEIGHT));
+        }
+        for (String term : SearchTokenizer.tokens(description)) {
+            weights.merge(term, 1, (a, b) -> Math.min(a + b, MAX_WEIGHT));
+        }
+        return weights;
+    }
+
+    // Оценка слова для каждого возможного веса: idf * насыщение веса
+    private static int[] termScores(int documents, int frequency) {
+        double idf = Math.log(1 + (documents - frequency + 0.5) / (frequency + 0.5));
+        int[] scores = new int[MAX_WEIGHT + 1];
+        for (int weight = 1; weight <= MAX_WEIGHT; weight++) {
+            scores[weight] = (int) Math.round(SCORE_SCALE * idf * weight * (K1 + 1) / (weight + K1));
+        }
+        return scores;
+    }
+
+    // Первая позиция не раньше from, где id не меньше filmId
+    private static int advance(Snapshot list, int from, long filmId) {
+        long[] ids = list.ids();
+        int size = list.size();
+        if (from >= size || ids[from] >= filmId) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        while (low + step < size && ids[low + step] < filmId) {
+            low += step;
+            step <<= 1;
+        }
+        int position = Arrays.binarySearch(ids, low + 1, Math.min(low + step, size), filmId);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private void insert(String term, long filmId, int weight) {
+        ReentrantLock lock = termLocks.lockFor(term.hashCode());
+        lock.lock();
+        try {
+            Postings list = postings.computeIfAbsent(term, t -> new Postings());
+            Snapshot current = list.snapshot;
+            int size = current.size();
+            int position = Arrays.binarySearch(current.ids(), 0, size, filmId);
+            if (position >= 0) {
+                current.weights()[position] = (byte) weight;
+                return;
+            }
+            position = -position - 1;
+            // новые фильмы получают наибольший id, поэтому обычно это дописывание в конец без копирования
+            if (position == size && size < current.ids().length) {
+                current.ids()[size] = filmId;
+                current.weights()[size] = (byte) weight;
+                list.snapshot = new Snapshot(current.ids(), current.weights(), size + 1);
+                return;
+            }
+            int capacity = size < current.ids().length ? current.ids().length : size * 2;
+            long[] ids = new long[capacity];
+            byte[] weights = new byte[capacity];
+            System.arraycopy(current.ids(), 0, ids, 0, position);
+            System.arraycopy(current.weights(), 0, weights, 0, position);
+            ids[position] = filmId;
+            weights[position] = (byte) weight;
+            System.arraycopy(current.ids(), position, ids, position + 1, size - position);
+            System.arraycopy(current.weights(), position, weights, position + 1, size - position);
+            list.snapshot = new Snapshot(ids, weights, size + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String term, long filmId) {
+        ReentrantLock lock = termLocks.lockFor(term.hashCode());
+        lock.lock();
+        try {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return;
+            }
+            Snapshot current = list.snapshot;
+            int size = current.size();
+            int position = Arrays.binarySearch(current.ids(), 0, size, filmId);
+            if (position < 0) {
+                return;
+            }
+            if (size == 1) {
+                postings.remove(term);
+                return;
+            }
+            long[] ids = new long[current.ids().length];
+            byte[] weights = new byte[ids.length];
+            System.arraycopy(current.ids(), 0, ids, 0, position);
+            System.arraycopy(current.weights(), 0, weights, 0, position);
+            System.arraycopy(current.ids(), position + 1, ids, position, size - position - 1);
+            System.arraycopy(current.weights(), position + 1, weights, position, size - position - 1);
+            list.snapshot = new Snapshot(ids, weights, size - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setLikes(long filmId, int likes) {
+        int page = (int) (filmId >>> PAGE_BITS);
+        int[][] pages = likePages;
+        if (page >= pages.length || pages[page] == null) {
+            pagesLock.lock();
+            try {
+                pages = likePages;
+                if (page >= pages.length) {
+                    pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+                }
+                if (pages[page] == null) {
+                    pages[page] = new int[1 << PAGE_BITS];
+                }
+                likePages = pages;
+            } finally {
+                pagesLock.unlock();
+            }
+        }
+        pages[page][(int) (filmId & ((1 << PAGE_BITS) - 1))] = likes;
+    }
+
+    private int likes(long filmId) {
+        int page = (int) (filmId >>> PAGE_BITS);
+        int[][] pages = likePages;
+        if (page >= pages.length || pages[page] == null) {
+            return 0;
+        }
+        return pages[page][(int) (filmId & ((1 << PAGE_BITS) - 1))];
+    }
+
+    private static final class Postings {
+        private volatile Snapshot snapshot = new Snapshot(new long[4], new byte[4], 0);
+    }
+
+    // Элементы массивов до size не меняются, кроме веса уже найденного фильма
+    private record Snapshot(long[] ids, byte[] weights, int size) {
+    }
+}
@@ -1,7 +1,9 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Optional;
 
@@ -13,8 +15,35 @@ public interface FilmStorage {
 
     Collection<Film> getFilms();
 
+    // Страница фильмов с id больше after, по возрастанию id
+    Collection<Film> getFilms(long after, int limit);
+
     Optional<Film> getFilm(Long id);
 
+    boolean addLike(Long filmId, Long userId);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    // Стоит ли сейчас лайк пользователя у фильма; для неизвестного фильма — false
+    boolean hasLike(Long filmId, Long userId);
+
+    // Лайки (add[i]) и снятия лайков (!add[i]) пользователей userIds[i] одному фильму по порядку, как серия
+    // addLike и removeLike; в ответе на месте каждого изменения — его результат
+    boolean[] changeLikes(Long filmId, long[] userIds, boolean[] add);
+
+    Collection<Film> getPopularFilms(int count);
+
+    // То же, что getPopularFilms, но без загрузки лайков
+    Collection<FilmSummary> getPopularFilmSummaries(int count);
+
+    // Фильмы с датой выхода от from до to включительно (null — без границы): по дате выхода или,
+    // с byPopularity, в порядке getPopularFilms. Фильмы без даты выхода не возвращаются
+    Collection<Film> getFilmsReleasedBetween(LocalDate from, LocalDate to, boolean byPopularity, int limit);
+
+    // Фильмы, в названии или описании которых есть все слова запроса, от самых подходящих;
+    // с boostLikes оценка растёт с числом лайков
+    Collection<Film> searchFilms(String query, int limit, boolean boostLikes);
+
     void clearData();
 
 
@@ -1,23 +1,73 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotReader;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotWriter;
+import ru.yandex.practicum.filmorate.storage.wal.Snapshottable;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WalReplayTarget;
+import ru.yandex.practicum.filmorate.util.CompactLongSet;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 @Slf4j
-public class InMemoryFilmStorage implements FilmStorage {
+public class InMemoryFilmStorage implements FilmStorage, WalReplayTarget, Snapshottable {
 
-    private final Map<Long, Film> films = new HashMap<>();
+    // id фильмов начинаются с 1, поэтому 0 отмечает конец раздела в снимке
+    private static final long END_OF_SECTION = 0;
+
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    // Упорядоченный индекс по id для постраничной выдачи
+    private final ConcurrentNavigableMap<Long, Film> idIndex = new ConcurrentSkipListMap<>();
+    // Изменения фильма и запись о нём в журнал идут под блокировкой его полосы
+    private final StripedLocks locks = new StripedLocks(64);
+    private final AtomicLong idSequence = new AtomicLong();
+    // id выдаются и попадают в idIndex в одном порядке: иначе страница after=N могла бы пропустить
+    // id меньше уже опубликованного, вставка которого ещё не дошла до индекса
+    private final ReentrantLock addLock = new ReentrantLock();
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final FilmReleaseIndex releaseIndex = new FilmReleaseIndex();
+    private final MutationLog mutationLog;
+
+    public InMemoryFilmStorage() {
+        this(MutationLog.NOOP);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     public Collection<Film> getFilms() {
-        return films.values();
+        return idIndex.values();
+    }
+
+    public Collection<Film> getFilms(long after, int limit) {
+        return page(idIndex.tailMap(after, false).values(), limit);
     }
 
     public Optional<Film> getFilm(Long id) {
@@ -25,32 +75,303 @@ public class InMemoryFilmStorage implements FilmStorage {
     }
 
     public Film addFilm(Film film) {
-        film.setId(getNextId());
-        films.put(film.getId(), film);
+        long lsn;
+        addLock.lock();
+        try {
+            film.setId(idSequence.incrementAndGet());
+            // вставка и запись в журнал идут под блокировкой фильма, как и у лайков: так лайк, пришедший
+            // сразу после вставки, окажется в журнале после этой записи
+            lsn = locks.withLock(film.getId(), () -> {
+                insert(film);
+                return mutationLog.append(state(film));
+            });
+        } finally {
+            addLock.unlock();
+        }
+        mutationLog.awaitDurable(lsn);
         log.info("Добавлен фильм: {}", film);
         return film;
     }
 
     public Film updateFilm(Film newFilm) {
-        Film oldFilm = films.get(newFilm.getId());
-        Optional.ofNullable(newFilm.getName()).ifPresent(oldFilm::setName);
-        Optional.ofNullable(newFilm.getDescription()).ifPresent(oldFilm::setDescription);
-        Optional.ofNullable(newFilm.getReleaseDate()).ifPresent(oldFilm::setReleaseDate);
-        Optional.ofNullable(newFilm.getDuration()).ifPresent(oldFilm::setDuration);
+        long[] lsn = new long[1];
+        // блокировка полосы фильма не даёт параллельным обновлениям потерять друг друга
+        Film oldFilm = locks.withLock(newFilm.getId(), () -> {
+            Film film = films.get(newFilm.getId());
+            if (film == null) {
+                return null;
+            }
+            String oldName = film.getName();
+            String oldDescription = film.getDescription();
+            LocalDate oldReleaseDate = film.getReleaseDate();
+            Optional.ofNullable(newFilm.getName()).ifPresent(film::setName);
+            Optional.ofNullable(newFilm.getDescription()).ifPresent(film::setDescription);
+            Optional.ofNullable(newFilm.getReleaseDate()).ifPresent(film::setReleaseDate);
+            Optional.ofNullable(newFilm.getDuration()).ifPresent(film::setDuration);
+            searchIndex.update(film.getId(), oldName, oldDescription, film.getName(), film.getDescription());
+            releaseIndex.update(film.getId(), oldReleaseDate, film.getReleaseDate());
+            lsn[0] = mutationLog.append(new WalRecord.FilmUpdated(film.getId(), film.getName(), film.getDescription(),
+                    film.getReleaseDate(), film.getDuration()));
+            return film;
+        });
+        mutationLog.awaitDurable(lsn[0]);
         log.info("Обновлен фильм: {}", newFilm);
         return oldFilm;
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    public boolean addLike(Long filmId, Long userId) {
+        return changeLikes(filmId, likes -> likes.add(userId.longValue()), new WalRecord.LikeAdded(filmId, userId));
+    }
+
+    public boolean removeLike(Long filmId, Long userId) {
+        return changeLikes(filmId, likes -> likes.remove(userId.longValue()),
+                new WalRecord.LikeRemoved(filmId, userId));
+    }
+
+    // Набор лайков фильма — неизменяемый снимок, поэтому читается без блокировки
+    public boolean hasLike(Long filmId, Long userId) {
+        Film film = films.get(filmId);
+        return film != null && film.getUsersLikes().contains(userId.longValue());
+    }
+
+    // Вся пачка применяется под одной блокировкой фильма одним изменением набора лайков, индексы обновляются
+    // один раз, а журнал ждётся только до последней записи пачки
+    public boolean[] changeLikes(Long filmId, long[] userIds, boolean[] add) {
+        boolean[] changed = new boolean[userIds.length];
+        long[] lsn = new long[1];
+        locks.withLock(filmId, () -> {
+            Film film = films.get(filmId);
+            if (film == null) {
+                return null;
+            }
+            CompactLongSet likes = film.getUsersLikes();
+            int oldLikes = likes.size();
+            System.arraycopy(likes.change(userIds, add), 0, changed, 0, changed.length);
+            for (int i = 0; i < userIds.length; i++) {
+                if (changed[i]) {
+                    lsn[0] = mutationLog.append(add[i]
+                            ? new WalRecord.LikeAdded(filmId, userIds[i])
+                            : new WalRecord.LikeRemoved(filmId, userIds[i]));
+                }
+            }
+            if (likes.size() != oldLikes) {
+                popularityIndex.update(filmId, oldLikes, likes.size());
+                searchIndex.likesChanged(filmId, likes.size());
+            }
+            return null;
+        });
+        mutationLog.awaitDurable(lsn[0]);
+        return changed;
+    }
+
+    public Collection<Film> getPopularFilms(int count) {
+        long[] ids = popularityIndex.top(count);
+        List<Film> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Optional.ofNullable(films.get(id)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public Collection<FilmSummary> getPopularFilmSummaries(int count) {
+        long[] ids = popularityIndex.top(count);
+        List<FilmSummary> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Optional.ofNullable(films.get(id)).map(FilmSummary::of).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public Collection<Film> getFilmsReleasedBetween(LocalDate from, LocalDate to, boolean byPopularity, int limit) {
+        List<Film> result = new ArrayList<>(Math.min(limit, 1024));
+        if (!byPopularity) {
+            releaseIndex.scan(from, to, id -> {
+                Optional.ofNullable(films.get(id)).ifPresent(result::add);
+                return result.size() < limit;
+            });
+            return result;
+        }
+        // порядок тот же, что у getPopularFilms: больше лайков — выше, при равенстве выше меньший id
+        LongIntTopK top = new LongIntTopK(Math.min(limit, films.size()));
+        releaseIndex.scan(from, to, id -> {
+            Film film = films.get(id);
+            if (film != null) {
+                top.offer(id, film.getUsersLikes().size());
+            }
+            return true;
+        });
+        for (long id : top.drain(new int[top.size()])) {
+            Optional.ofNullable(films.get(id)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public Collection<Film> searchFilms(String query, int limit, boolean boostLikes) {
+        long[] ids = searchIndex.search(query, limit, boostLikes);
+        List<Film> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Optional.ofNullable(films.get(id)).ifPresent(result::add);
+        }
+        return result;
     }
 
     public void clearData() {
+        clear();
+        mutationLog.awaitDurable(mutationLog.append(new WalRecord.FilmsCleared()));
+    }
+
+    @Override
+    public void replay(WalRecord record) {
+        switch (record) {
+            // фильм уже может быть в снимке, поэтому запись о добавлении применяется как замена состояния
+            case WalRecord.FilmAdded added -> {
+                idSequence.accumulateAndGet(added.id(), Math::max);
+                locks.withLock(added.id(), () -> {
+                    Film film = films.get(added.id());
+                    if (film == null) {
+                        insert(toFilm(added));
+                        return null;
+                    }
+                    int oldLikes = film.getUsersLikes().size();
+                    searchIndex.update(added.id(), film.getName(), film.getDescription(), added.name(),
+                            added.description());
+                    releaseIndex.update(added.id(), film.getReleaseDate(), added.releaseDate());
+                    film.setName(added.name());
+                    film.setDescription(added.description());
+                    film.setReleaseDate(added.releaseDate());
+                    film.setDuration(added.duration());
+                    film.setUsersLikes(CompactLongSet.fromSorted(added.likes()));
+                    popularityIndex.update(added.id(), oldLikes, added.likes().length);
+                    searchIndex.likesChanged(added.id(), added.likes().length);
+                    return film;
+                });
+            }
+            case WalRecord.FilmUpdated updated -> locks.withLock(updated.id(), () -> {
+                Film film = films.get(updated.id());
+                if (film != null) {
+                    searchIndex.update(updated.id(), film.getName(), film.getDescription(), updated.name(),
+                            updated.description());
+                    releaseIndex.update(updated.id(), film.getReleaseDate(), updated.releaseDate());
+                    film.setName(updated.name());
+                    film.setDescription(updated.description());
+                    film.setReleaseDate(updated.releaseDate());
+                    film.setDuration(updated.duration());
+                }
+                return film;
+            });
+            case WalRecord.LikeAdded like -> changeLikes(like.filmId(), likes -> likes.add(like.userId()), null);
+            case WalRecord.LikeRemoved like -> changeLikes(like.filmId(), likes -> likes.remove(like.userId()), null);
+            case WalRecord.FilmsCleared ignored -> clear();
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "films";
+    }
+
+    @Override
+    public void writeSnapshot(SnapshotWriter out) throws IOException {
+        for (Long filmId : idIndex.keySet()) {
+            // копия состояния снимается под блокировкой фильма, чтобы не попасть на середину обновления
+            WalRecord.FilmAdded film = locks.withLock(filmId, () -> {
+                Film current = films.get(filmId);
+                return current == null ? null : state(current);
+            });
+            if (film == null) {
+                continue;
+            }
+            out.putLong(film.id());
+            out.putString(film.name());
+            out.putString(film.description());
+            out.putLong(film.releaseDate() == null ? Long.MIN_VALUE : film.releaseDate().toEpochDay());
+            out.putInt(film.duration() == null ? -1 : film.duration());
+            out.putInt(film.likes().length);
+            out.putLongs(film.likes(), 0, film.likes().length);
+        }
+        out.putLong(END_OF_SECTION);
+    }
+
+    @Override
+    public void readSnapshot(SnapshotReader in) throws IOException {
+        clear();
+        for (long id = in.getLong(); id != END_OF_SECTION; id = in.getLong()) {
+            String name = in.getString();
+            String description = in.getString();
+            long epochDay = in.getLong();
+            int duration = in.getInt();
+            long[] likes = new long[in.getInt()];
+            in.getLongs(likes, 0, likes.length);
+            insert(toFilm(new WalRecord.FilmAdded(id, name, description,
+                    epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay),
+                    duration < 0 ? null : duration, likes)));
+            idSequence.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    private static WalRecord.FilmAdded state(Film film) {
+        return new WalRecord.FilmAdded(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getUsersLikes().toLongArray());
+    }
+
+    private static Film toFilm(WalRecord.FilmAdded added) {
+        Film film = new Film(added.id(), added.name(), added.description(), added.releaseDate(), added.duration());
+        film.setUsersLikes(CompactLongSet.fromSorted(added.likes()));
+        return film;
+    }
+
+    private void insert(Film film) {
+        // в индекс фильм попадает раньше, чем в хранилище: лайк может прийти сразу после put
+        // (при восстановлении из снимка вставка идёт без блокировки)
+        popularityIndex.add(film.getId(), film.getUsersLikes().size());
+        searchIndex.add(film.getId(), film.getName(), film.getDescription(), film.getUsersLikes().size());
+        releaseIndex.add(film.getId(), film.getReleaseDate());
+        films.put(film.getId(), film);
+        idIndex.put(film.getId(), film);
+    }
+
+    private static List<Film> page(Collection<Film> tail, int limit) {
+        List<Film> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Film film : tail) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(film);
+        }
+        return result;
+    }
+
+    // record == null — изменение при восстановлении из журнала, в журнал оно не пишется
+    private boolean changeLikes(Long filmId, Predicate<CompactLongSet> change, WalRecord record) {
+        long[] lsn = new long[1];
+        boolean changed = locks.withLock(filmId, () -> {
+            Film film = films.get(filmId);
+            if (film == null) {
+                return false;
+            }
+            int oldLikes = film.getUsersLikes().size();
+            if (!change.test(film.getUsersLikes())) {
+                return false;
+            }
+            popularityIndex.update(filmId, oldLikes, film.getUsersLikes().size());
+            searchIndex.likesChanged(filmId, film.getUsersLikes().size());
+            if (record != null) {
+                lsn[0] = mutationLog.append(record);
+            }
+            return true;
+        });
+        mutationLog.awaitDurable(lsn[0]);
+        return changed;
+    }
+
+    private void clear() {
         films.clear();
+        idIndex.clear();
+        popularityIndex.clear();
+        searchIndex.clear();
+        releaseIndex.clear();
+        idSequence.set(0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,287 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.util.CompactLongSet;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+@Slf4j
+public class JdbcFilmStorage implements FilmStorage {
+
+    private static final String SELECT_FILMS = "SELECT id, name, description, release_date, duration FROM films ";
+
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> new Film(rs.getLong("id"),
+            rs.getString("name"), rs.getString("description"), rs.getObject("release_date", LocalDate.class),
+            (Integer) rs.getObject("duration"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpleJdbcInsert filmInsert;
+
+    public JdbcFilmStorage(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration", "likes_count")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    public Collection<Film> getFilms() {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + "ORDER BY id", FILM_MAPPER);
+        Map<Long, Film> byId = index(films);
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id",
+                rs -> {
+                    attachLikes(byId, rs);
+                    return null;
+                });
+        return films;
+    }
+
+    public Collection<Film> getFilms(long after, int limit) {
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + "WHERE id > ? ORDER BY id LIMIT ?", FILM_MAPPER,
+                after, limit));
+    }
+
+    public Optional<Film> getFilm(Long id) {
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + "WHERE id = ?", FILM_MAPPER, id)).stream().findFirst();
+    }
+
+    @Transactional
+    public Film addFilm(Film film) {
+        long[] likes = film.getUsersLikes().toLongArray();
+        Number id = filmInsert.executeAndReturnKey(new MapSqlParameterSource()
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("release_date", film.getReleaseDate())
+                .addValue("duration", film.getDuration())
+                .addValue("likes_count", likes.length));
+        film.setId(id.longValue());
+        if (likes.length > 0) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                    likePairs(film.getId(), likes));
+        }
+        log.info("Добавлен фильм: {}", film);
+        return film;
+    }
+
+    @Transactional
+    public Film updateFilm(Film newFilm) {
+        int updated = jdbcTemplate.update("UPDATE films SET name = COALESCE(?, name), "
+                        + "description = COALESCE(?, description), release_date = COALESCE(?, release_date), "
+                        + "duration = COALESCE(?, duration) WHERE id = ?",
+                newFilm.getName(), newFilm.getDescription(), newFilm.getReleaseDate(), newFilm.getDuration(),
+                newFilm.getId());
+        log.info("Обновлен фильм: {}", newFilm);
+        return updated == 0 ? null : getFilm(newFilm.getId()).orElse(null);
+    }
+
+    // Вставка лайка и изменение счётчика идут в одной транзакции; повторный лайк отсекает первичный ключ
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        try {
+            jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+        } catch (DuplicateKeyException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
+        if (jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    public boolean hasLike(Long filmId, Long userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)",
+                Boolean.class, filmId, userId));
+    }
+
+    // Текущие лайки пачки читаются одним запросом, изменения пишутся пакетами, счётчик обновляется один раз
+    @Transactional
+    public boolean[] changeLikes(Long filmId, long[] userIds, boolean[] add) {
+        Set<Long> liked = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = :filmId AND user_id IN (:userIds)",
+                Map.of("filmId", filmId, "userIds", Arrays.stream(userIds).boxed().toList()), Long.class));
+        Set<Long> before = new HashSet<>(liked);
+        boolean[] changed = new boolean[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            changed[i] = add[i] ? liked.add(userIds[i]) : liked.remove(userIds[i]);
+        }
+        long[] inserted = liked.stream().filter(userId -> !before.contains(userId)).mapToLong(Long::longValue)
+                .toArray();
+        long[] deleted = before.stream().filter(userId -> !liked.contains(userId)).mapToLong(Long::longValue)
+                .toArray();
+        if (inserted.length > 0) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)",
+                    likePairs(filmId, inserted));
+        }
+        if (deleted.length > 0) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?",
+                    likePairs(filmId, deleted));
+        }
+        if (inserted.length != deleted.length) {
+            jdbcTemplate.update("UPDATE films SET likes_count = likes_count + ? WHERE id = ?",
+                    inserted.length - deleted.length, filmId);
+        }
+        return changed;
+    }
+
+    // Читает первые count строк индекса films_popularity_idx
+    public Collection<Film> getPopularFilms(int count) {
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + "ORDER BY likes_count DESC, id LIMIT ?", FILM_MAPPER,
+                Math.max(count, 0)));
+    }
+
+    // Число лайков берётся из likes_count, film_likes не читается
+    public Collection<FilmSummary> getPopularFilmSummaries(int count) {
+        return jdbcTemplate.query("SELECT id, name, description, release_date, duration, likes_count FROM films "
+                        + "ORDER BY likes_count DESC, id LIMIT ?",
+                (rs, rowNum) -> new FilmSummary(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                        rs.getObject("release_date", LocalDate.class), rs.getObject("duration", Integer.class),
+                        rs.getInt("likes_count")),
+                Math.max(count, 0));
+    }
+
+    // Читает диапазон индекса films_release_date_idx; с byPopularity сортирует найденные по likes_count
+    public Collection<Film> getFilmsReleasedBetween(LocalDate from, LocalDate to, boolean byPopularity, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        StringJoiner condition = new StringJoiner(" AND ", "WHERE ", " ").add("release_date IS NOT NULL");
+        if (from != null) {
+            condition.add("release_date >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            condition.add("release_date <= :to");
+            params.addValue("to", to);
+        }
+        String order = byPopularity ? "ORDER BY likes_count DESC, id " : "ORDER BY release_date, id ";
+        return withLikes(namedJdbcTemplate.query(SELECT_FILMS + condition + order + "LIMIT :limit", params,
+                FILM_MAPPER));
+    }
+
+    /*
+     * Без отдельного индекса: слова запроса ищутся подстрокой в названии и описании, приведённых к нижнему регистру
+     * с заменой «ё» на «е». Совпадение в названии весит как в FilmSearchIndex больше, чем в описании.
+     */
+    public Collection<Film> searchFilms(String query, int limit, boolean boostLikes) {
+        List<String> terms = SearchTokenizer.tokens(query).stream().distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String name = "REPLACE(LOWER(name), 'ё', 'е')";
+        String description = "REPLACE(LOWER(COALESCE(description, '')), 'ё', 'е')";
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        StringJoiner score = new StringJoiner(" + ");
+        StringJoiner condition = new StringJoiner(" AND ");
+        for (int i = 0; i < terms.size(); i++) {
+            String param = ":t" + i;
+            params.addValue("t" + i, "%" + terms.get(i) + "%");
+            score.add("CASE WHEN " + name + " LIKE " + param + " THEN " + FilmSearchIndex.NAME_WEIGHT + " ELSE 0 END")
+                    .add("CASE WHEN " + description + " LIKE " + param + " THEN 1 ELSE 0 END");
+            condition.add("(" + name + " LIKE " + param + " OR " + description + " LIKE " + param + ")");
+        }
+        String order = boostLikes ? "score * (1 + LN(1 + likes_count))" : "score";
+        return withLikes(namedJdbcTemplate.query("SELECT id, name, description, release_date, duration FROM "
+                + "(SELECT f.*, " + score + " AS score FROM films f WHERE " + condition + ") AS matched "
+                + "ORDER BY " + order + " DESC, id LIMIT :limit", params, FILM_MAPPER));
+    }
+
+    // Сброс счётчика id — DDL с неявной фиксацией в H2, поэтому он выполняется после транзакции с удалением
+    public void clearData() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM film_likes");
+            jdbcTemplate.update("DELETE FROM films");
+        });
+        jdbcTemplate.update("ALTER TABLE films ALTER COLUMN id RESTART WITH 1");
+    }
+
+    // Лайки всех фильмов списка загружаются одним запросом
+    private List<Film> withLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, Film> byId = index(films);
+        namedJdbcTemplate.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids) "
+                        + "ORDER BY film_id, user_id", Map.of("ids", byId.keySet()),
+                rs -> {
+                    attachLikes(byId, rs);
+                    return null;
+                });
+        return films;
+    }
+
+    private static Map<Long, Film> index(List<Film> films) {
+        Map<Long, Film> byId = new LinkedHashMap<>();
+        for (Film film : films) {
+            byId.put(film.getId(), film);
+        }
+        return byId;
+    }
+
+    // Строки приходят отсортированными по film_id и user_id, поэтому лайки фильма собираются подряд
+    private static void attachLikes(Map<Long, Film> films, ResultSet rs) throws SQLException {
+        long currentFilm = -1;
+        long[] likes = new long[16];
+        int size = 0;
+        while (rs.next()) {
+            long filmId = rs.getLong("film_id");
+            if (filmId != currentFilm) {
+                setLikes(films.get(currentFilm), likes, size);
+                currentFilm = filmId;
+                size = 0;
+            }
+            if (size == likes.length) {
+                likes = Arrays.copyOf(likes, size * 2);
+            }
+            likes[size++] = rs.getLong("user_id");
+        }
+        setLikes(films.get(currentFilm), likes, size);
+    }
+
+    private static void setLikes(Film film, long[] likes, int size) {
+        if (film != null) {
+            film.setUsersLikes(CompactLongSet.fromSorted(Arrays.copyOf(likes, size)));
+        }
+    }
+
+    private static List<Object[]> likePairs(long filmId, long[] userIds) {
+        return Arrays.stream(userIds).mapToObj(userId -> new Object[]{filmId, userId}).toList();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Разбивает текст на слова для поиска: слово — непрерывная последовательность букв и цифр любого алфавита.
+ * Слова приводятся к нижнему регистру, «ё» заменяется на «е». Однобуквенные слова (предлоги, союзы)
+ * отбрасываются, числа остаются любой длины.
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    static List<String> tokens(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        StringBuilder token = new StringBuilder();
+        boolean digits = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                token.append(lower == 'ё' ? 'е' : lower);
+                digits &= Character.isDigit(c);
+            } else if (!token.isEmpty()) {
+                if (token.length() > 1 || digits) {
+                    result.add(token.toString());
+                }
+                token.setLength(0);
+                digits = true;
+            }
+        }
+        return result;
+    }
+}
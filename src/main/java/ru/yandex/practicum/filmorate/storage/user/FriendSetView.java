@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// Представление User.friends поверх графа дружбы: список друзей читается из графа в момент обращения
+class FriendSetView extends AbstractSet<Long> {
+
+    private final FriendshipGraph graph;
+    private final long userId;
+
+    FriendSetView(FriendshipGraph graph, long userId) {
+        this.graph = graph;
+        this.userId = userId;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return Arrays.stream(graph.neighbors(userId)).iterator();
+    }
+
+    @Override
+    public int size() {
+        return graph.degree(userId);
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long friendId && graph.hasEdge(userId, friendId);
+    }
+}
@@ -0,0 +1,368 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotReader;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotWriter;
+import ru.yandex.practicum.filmorate.util.LongIntersection;
+import ru.yandex.practicum.filmorate.util.SortedLongArrays;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Неориентированный граф дружбы в сжатом формате (CSR): друзья пользователя с id v лежат
+ * в targets[offsets[v], offsets[v + 1]) по возрастанию id.
+ * Новые и удалённые рёбра копятся в буфере изменений и периодически вливаются в основные массивы.
+ * Ребро добавляется и удаляется сразу в обе стороны под одной блокировкой записи.
+ * Основные массивы никогда не меняются на месте — слияние создаёт новые, поэтому снимок может читать их без блокировки.
+ */
+class FriendshipGraph {
+
+    private static final int MIN_PENDING_FOR_COMPACTION = 1024;
+    // во столько раз больший список друзей не копируется, а в нём ищутся друзья меньшего
+    private static final int PROBE_RATIO = 32;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] offsets = new int[1];
+    private long[] targets = SortedLongArrays.EMPTY;
+
+    private final Map<Long, long[]> added = new HashMap<>();
+    private final Map<Long, long[]> removed = new HashMap<>();
+    private int pending;
+
+    boolean addEdge(long userId, long friendId) {
+        return addEdge(userId, friendId, () -> {
+        });
+    }
+
+    // onChange выполняется под блокировкой записи, только если ребро действительно добавлено
+    boolean addEdge(long userId, long friendId, Runnable onChange) {
+        lock.writeLock().lock();
+        try {
+            if (contains(userId, friendId)) {
+                return false;
+            }
+            link(userId, friendId);
+            link(friendId, userId);
+            onChange.run();
+            afterChange();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean removeEdge(long userId, long friendId) {
+        return removeEdge(userId, friendId, () -> {
+        });
+    }
+
+    boolean removeEdge(long userId, long friendId, Runnable onChange) {
+        lock.writeLock().lock();
+        try {
+            if (!contains(userId, friendId)) {
+                return false;
+            }
+            unlink(userId, friendId);
+            unlink(friendId, userId);
+            onChange.run();
+            afterChange();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean hasEdge(long userId, long friendId) {
+        lock.readLock().lock();
+        try {
+            return contains(userId, friendId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Отсортированная копия списка друзей
+    long[] neighbors(long userId) {
+        lock.readLock().lock();
+        try {
+            return neighborsOf(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Списки нескольких пользователей под одной блокировкой чтения
+    long[][] neighbors(long[] userIds) {
+        long[][] result = new long[userIds.length][];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < userIds.length; i++) {
+                result[i] = neighborsOf(userIds[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Общие друзья по возрастанию id. При сильно разном числе друзей копируется только меньший список,
+    // а каждый его элемент ищется двоичным поиском прямо в основных массивах и буферах большего
+    long[] commonNeighbors(long userId, long otherId) {
+        lock.readLock().lock();
+        try {
+            int userDegree = degreeOf(userId);
+            int otherDegree = degreeOf(otherId);
+            long small = userDegree <= otherDegree ? userId : otherId;
+            long large = small == userId ? otherId : userId;
+            int smallDegree = Math.min(userDegree, otherDegree);
+            if (smallDegree == 0) {
+                return SortedLongArrays.EMPTY;
+            }
+            if (Math.max(userDegree, otherDegree) / smallDegree < PROBE_RATIO) {
+                return LongIntersection.intersect(neighborsOf(small), neighborsOf(large));
+            }
+            long[] largeAdded = added.getOrDefault(large, SortedLongArrays.EMPTY);
+            long[] largeRemoved = removed.getOrDefault(large, SortedLongArrays.EMPTY);
+            int from = hasBaseVertex(large) ? offsets[(int) large] : 0;
+            int to = hasBaseVertex(large) ? offsets[(int) large + 1] : 0;
+            long[] candidates = neighborsOf(small);
+            long[] result = new long[candidates.length];
+            int size = 0;
+            for (long candidate : candidates) {
+                if (SortedLongArrays.contains(largeAdded, candidate)
+                        || !SortedLongArrays.contains(largeRemoved, candidate)
+                        && Arrays.binarySearch(targets, from, to, candidate) >= 0) {
+                    result[size++] = candidate;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Не больше limit друзей с id больше after, по возрастанию id
+    long[] neighborsAfter(long userId, long after, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] userAdded = added.getOrDefault(userId, SortedLongArrays.EMPTY);
+            long[] userRemoved = removed.getOrDefault(userId, SortedLongArrays.EMPTY);
+            int from = hasBaseVertex(userId) ? offsets[(int) userId] : 0;
+            int to = hasBaseVertex(userId) ? offsets[(int) userId + 1] : 0;
+            return SortedLongArrays.mergeAfter(targets, from, to, userAdded, userRemoved, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int degree(long userId) {
+        lock.readLock().lock();
+        try {
+            return degreeOf(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            offsets = new int[1];
+            targets = SortedLongArrays.EMPTY;
+            added.clear();
+            removed.clear();
+            pending = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Пишет граф в снимок в формате CSR: число вершин, offsets, targets
+    void writeTo(SnapshotWriter out) throws IOException {
+        int[] baseOffsets;
+        long[] baseTargets;
+        Map<Long, long[]> baseAdded;
+        Map<Long, long[]> baseRemoved;
+        // под блокировкой только снимаются ссылки на основные массивы и копии буферов изменений
+        lock.readLock().lock();
+        try {
+            baseOffsets = offsets;
+            baseTargets = targets;
+            baseAdded = new HashMap<>(added);
+            baseRemoved = new HashMap<>(removed);
+        } finally {
+            lock.readLock().unlock();
+        }
+        int baseVertexCount = baseOffsets.length - 1;
+        long maxVertex = baseVertexCount - 1;
+        for (long userId : baseAdded.keySet()) {
+            maxVertex = Math.max(maxVertex, userId);
+        }
+        int vertexCount = (int) maxVertex + 1;
+        int[] nextOffsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            int baseDegree = v < baseVertexCount ? baseOffsets[v + 1] - baseOffsets[v] : 0;
+            nextOffsets[v + 1] = nextOffsets[v] + baseDegree
+                    + baseAdded.getOrDefault((long) v, SortedLongArrays.EMPTY).length
+                    - baseRemoved.getOrDefault((long) v, SortedLongArrays.EMPTY).length;
+        }
+        out.putInt(vertexCount);
+        out.putInts(nextOffsets, 0, nextOffsets.length);
+        for (int v = 0; v < vertexCount; v++) {
+            int from = v < baseVertexCount ? baseOffsets[v] : 0;
+            int to = v < baseVertexCount ? baseOffsets[v + 1] : 0;
+            long[] userAdded = baseAdded.get((long) v);
+            long[] userRemoved = baseRemoved.get((long) v);
+            if (userAdded == null && userRemoved == null) {
+                out.putLongs(baseTargets, from, to);
+            } else {
+                long[] friends = SortedLongArrays.merge(baseTargets, from, to,
+                        userAdded == null ? SortedLongArrays.EMPTY : userAdded,
+                        userRemoved == null ? SortedLongArrays.EMPTY : userRemoved);
+                out.putLongs(friends, 0, friends.length);
+            }
+        }
+    }
+
+    // Заменяет граф содержимым снимка: массивы читаются целиком, без построения по рёбрам
+    void readFrom(SnapshotReader in) throws IOException {
+        int vertexCount = in.getInt();
+        int[] nextOffsets = new int[vertexCount + 1];
+        in.getInts(nextOffsets, 0, nextOffsets.length);
+        long[] nextTargets = new long[nextOffsets[vertexCount]];
+        in.getLongs(nextTargets, 0, nextTargets.length);
+        lock.writeLock().lock();
+        try {
+            offsets = nextOffsets;
+            targets = nextTargets;
+            added.clear();
+            removed.clear();
+            pending = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] neighborsOf(long userId) {
+        long[] userAdded = added.getOrDefault(userId, SortedLongArrays.EMPTY);
+        long[] userRemoved = removed.getOrDefault(userId, SortedLongArrays.EMPTY);
+        if (!hasBaseVertex(userId)) {
+            return userAdded.clone();
+        }
+        int from = offsets[(int) userId];
+        int to = offsets[(int) userId + 1];
+        return SortedLongArrays.merge(targets, from, to, userAdded, userRemoved);
+    }
+
+    private int degreeOf(long userId) {
+        int baseDegree = hasBaseVertex(userId) ? offsets[(int) userId + 1] - offsets[(int) userId] : 0;
+        return baseDegree + added.getOrDefault(userId, SortedLongArrays.EMPTY).length
+                - removed.getOrDefault(userId, SortedLongArrays.EMPTY).length;
+    }
+
+    private boolean contains(long userId, long friendId) {
+        if (SortedLongArrays.contains(added.getOrDefault(userId, SortedLongArrays.EMPTY), friendId)) {
+            return true;
+        }
+        if (SortedLongArrays.contains(removed.getOrDefault(userId, SortedLongArrays.EMPTY), friendId)) {
+            return false;
+        }
+        return inBase(userId, friendId);
+    }
+
+    private boolean inBase(long userId, long friendId) {
+        if (!hasBaseVertex(userId)) {
+            return false;
+        }
+        int from = offsets[(int) userId];
+        int to = offsets[(int) userId + 1];
+        return Arrays.binarySearch(targets, from, to, friendId) >= 0;
+    }
+
+    private boolean hasBaseVertex(long userId) {
+        return userId >= 0 && userId < offsets.length - 1;
+    }
+
+    private void link(long userId, long friendId) {
+        long[] userRemoved = removed.get(userId);
+        if (userRemoved != null && SortedLongArrays.contains(userRemoved, friendId)) {
+            putOrDrop(removed, userId, SortedLongArrays.remove(userRemoved, friendId));
+        } else {
+            added.put(userId, SortedLongArrays.insert(added.getOrDefault(userId, SortedLongArrays.EMPTY), friendId));
+        }
+    }
+
+    private void unlink(long userId, long friendId) {
+        long[] userAdded = added.get(userId);
+        if (userAdded != null && SortedLongArrays.contains(userAdded, friendId)) {
+            putOrDrop(added, userId, SortedLongArrays.remove(userAdded, friendId));
+        } else {
+            removed.put(userId, SortedLongArrays.insert(removed.getOrDefault(userId, SortedLongArrays.EMPTY), friendId));
+        }
+    }
+
+    private static void putOrDrop(Map<Long, long[]> delta, long userId, long[] values) {
+        if (values.length == 0) {
+            delta.remove(userId);
+        } else {
+            delta.put(userId, values);
+        }
+    }
+
+    // Слияние раз в targets.length / 4 изменений даёт амортизированно O(1) на изменение
+    private void afterChange() {
+        pending += 2;
+        if (pending >= Math.max(MIN_PENDING_FOR_COMPACTION, targets.length / 4)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        long maxVertex = offsets.length - 2;
+        for (long userId : added.keySet()) {
+            maxVertex = Math.max(maxVertex, userId);
+        }
+        int vertexCount = (int) maxVertex + 1;
+        int[] nextOffsets = new int[vertexCount + 1];
+        long[][] lists = new long[vertexCount][];
+        int edges = 0;
+        Set<Long> changed = new HashSet<>(added.keySet());
+        changed.addAll(removed.keySet());
+        for (long userId : changed) {
+            int v = (int) userId;
+            int from = hasBaseVertex(v) ? offsets[v] : 0;
+            int to = hasBaseVertex(v) ? offsets[v + 1] : 0;
+            lists[v] = SortedLongArrays.merge(targets, from, to, added.getOrDefault(userId, SortedLongArrays.EMPTY),
+                    removed.getOrDefault(userId, SortedLongArrays.EMPTY));
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            nextOffsets[v] = edges;
+            if (lists[v] != null) {
+                edges += lists[v].length;
+            } else if (hasBaseVertex(v)) {
+                edges += offsets[v + 1] - offsets[v];
+            }
+        }
+        nextOffsets[vertexCount] = edges;
+        long[] nextTargets = new long[edges];
+        for (int v = 0; v < vertexCount; v++) {
+            if (lists[v] != null) {
+                System.arraycopy(lists[v], 0, nextTargets, nextOffsets[v], lists[v].length);
+            } else if (hasBaseVertex(v)) {
+                System.arraycopy(targets, offsets[v], nextTargets, nextOffsets[v], offsets[v + 1] - offsets[v]);
+            }
+        }
+        offsets = nextOffsets;
+        targets = nextTargets;
+        added.clear();
+        removed.clear();
+        pending = 0;
+    }
+}
@@ -1,22 +1,74 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.storage.wal.MutationLog;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotReader;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotWriter;
+import ru.yandex.practicum.filmorate.storage.wal.Snapshottable;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord;
+import ru.yandex.practicum.filmorate.storage.wal.WalReplayTarget;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 @Slf4j
-public class InMemoryUserStorage implements UserStorage {
+public class InMemoryUserStorage implements UserStorage, WalReplayTarget, Snapshottable {
 
-    private final Map<Long, User> users = new HashMap<>();
+    // id пользователей начинаются с 1, поэтому 0 отмечает конец списка пользователей в снимке
+    private static final long END_OF_USERS = 0;
+
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    // Упорядоченный индекс по id для постраничной выдачи
+    private final ConcurrentNavigableMap<Long, User> idIndex = new ConcurrentSkipListMap<>();
+    // Изменения пользователя и запись о нём в журнал идут под блокировкой его полосы
+    private final StripedLocks locks = new StripedLocks(64);
+    private final AtomicLong idSequence = new AtomicLong();
+    // id выдаются и попадают в idIndex в одном порядке: иначе страница after=N могла бы пропустить
+    // id меньше уже опубликованного, вставка которого ещё не дошла до индекса
+    private final ReentrantLock addLock = new ReentrantLock();
+    private final FriendshipGraph friendships = new FriendshipGraph();
+    private final MutationLog mutationLog;
+
+    public InMemoryUserStorage() {
+        this(MutationLog.NOOP);
+    }
+
+    @Autowired
+    public InMemoryUserStorage(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     public Collection<User> getUsers() {
-        return users.values();
+        return idIndex.values();
+    }
+
+    public Collection<User> getUsers(long after, int limit) {
+        List<User> result = new ArrayList<>(Math.min(limit, 1024));
+        for (User user : idIndex.tailMap(after, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(user);
+        }
+        return result;
     }
 
     public Optional<User> getUser(Long id) {
@@ -24,32 +76,179 @@ public class InMemoryUserStorage implements UserStorage {
     }
 
     public User addUser(User user) {
-        user.setId(getNextId());
-        users.put(user.getId(), user);
+        long lsn;
+        addLock.lock();
+        try {
+            user.setId(idSequence.incrementAndGet());
+            // как и остальные изменения, в журнал пишется уже применённое состояние под блокировкой записи
+            lsn = locks.withLock(user.getId(), () -> {
+                insert(user);
+                return mutationLog.append(state(user));
+            });
+        } finally {
+            addLock.unlock();
+        }
+        mutationLog.awaitDurable(lsn);
         log.info("Добавлен пользователь: {}", user);
         return user;
     }
 
     public User updateUser(User newUser) {
-        User oldUser = users.get(newUser.getId());
-        Optional.of(newUser.getName()).ifPresent(oldUser::setName);
-        Optional.ofNullable(newUser.getEmail()).ifPresent(oldUser::setEmail);
-        Optional.ofNullable(newUser.getBirthday()).ifPresent(oldUser::setBirthday);
-        Optional.ofNullable(newUser.getLogin()).ifPresent(oldUser::setLogin);
+        long[] lsn = new long[1];
+        User oldUser = locks.withLock(newUser.getId(), () -> {
+            User user = users.get(newUser.getId());
+            if (user == null) {
+                return null;
+            }
+            Optional.of(newUser.getName()).ifPresent(user::setName);
+            Optional.ofNullable(newUser.getEmail()).ifPresent(user::setEmail);
+            Optional.ofNullable(newUser.getBirthday()).ifPresent(user::setBirthday);
+            Optional.ofNullable(newUser.getLogin()).ifPresent(user::setLogin);
+            lsn[0] = mutationLog.append(new WalRecord.UserUpdated(user.getId(), user.getEmail(), user.getLogin(),
+                    user.getName(), user.getBirthday()));
+            return user;
+        });
+        mutationLog.awaitDurable(lsn[0]);
         log.info("Обновлен пользователь: {}", newUser);
         return oldUser;
     }
 
+    public boolean addFriend(Long userId, Long friendId) {
+        long[] lsn = new long[1];
+        boolean added = friendships.addEdge(userId, friendId,
+                () -> lsn[0] = mutationLog.append(new WalRecord.FriendAdded(userId, friendId)));
+        mutationLog.awaitDurable(lsn[0]);
+        return added;
+    }
+
+    public boolean removeFriend(Long userId, Long friendId) {
+        long[] lsn = new long[1];
+        boolean removed = friendships.removeEdge(userId, friendId,
+                () -> lsn[0] = mutationLog.append(new WalRecord.FriendRemoved(userId, friendId)));
+        mutationLog.awaitDurable(lsn[0]);
+        return removed;
+    }
+
+    public long[] getFriendIds(Long userId) {
+        return friendships.neighbors(userId);
+    }
+
+    public long[] getFriendIds(Long userId, long after, int limit) {
+        return friendships.neighborsAfter(userId, after, limit);
+    }
+
+    public long[][] getFriendIds(long[] userIds) {
+        return friendships.neighbors(userIds);
+    }
+
+    public long[] getCommonFriendIds(Long userId, Long otherId) {
+        return friendships.commonNeighbors(userId, otherId);
+    }
+
+    public List<UserSummary> getUserSummaries(long[] ids) {
+        List<UserSummary> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Optional.ofNullable(users.get(id)).map(UserSummary::of).ifPresent(result::add);
+        }
+        return result;
+    }
+
     public void clearData() {
-        users.clear();
+        clear();
+        mutationLog.awaitDurable(mutationLog.append(new WalRecord.UsersCleared()));
+    }
+
+    @Override
+    public void replay(WalRecord record) {
+        switch (record) {
+            // пользователь уже может быть в снимке, поэтому запись о добавлении применяется как замена состояния
+            case WalRecord.UserAdded added -> {
+                idSequence.accumulateAndGet(added.id(), Math::max);
+                locks.withLock(added.id(), () -> {
+                    User user = users.get(added.id());
+                    if (user == null) {
+                        insert(new User(added.id(), added.email(), added.login(), added.name(), added.birthday()));
+                        return null;
+                    }
+                    user.setEmail(added.email());
+                    user.setLogin(added.login());
+                    user.setName(added.name());
+                    user.setBirthday(added.birthday());
+                    return user;
+                });
+            }
+            case WalRecord.UserUpdated updated -> locks.withLock(updated.id(), () -> {
+                User user = users.get(updated.id());
+                if (user != null) {
+                    user.setEmail(updated.email());
+                    user.setLogin(updated.login());
+                    user.setName(updated.name());
+                    user.setBirthday(updated.birthday());
+                }
+                return user;
+            });
+            case WalRecord.FriendAdded friend -> friendships.addEdge(friend.userId(), friend.friendId());
+            case WalRecord.FriendRemoved friend -> friendships.removeEdge(friend.userId(), friend.friendId());
+            case WalRecord.UsersCleared ignored -> clear();
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "users";
+    }
+
+    @Override
+    public void writeSnapshot(SnapshotWriter out) throws IOException {
+        for (Long userId : idIndex.keySet()) {
+            WalRecord.UserAdded user = locks.withLock(userId, () -> {
+                User current = users.get(userId);
+                return current == null ? null : state(current);
+            });
+            if (user == null) {
+                continue;
+            }
+            out.putLong(user.id());
+            out.putString(user.email());
+            out.putString(user.login());
+            out.putString(user.name());
+            out.putLong(user.birthday() == null ? Long.MIN_VALUE : user.birthday().toEpochDay());
+        }
+        out.putLong(END_OF_USERS);
+        friendships.writeTo(out);
+    }
+
+    @Override
+    public void readSnapshot(SnapshotReader in) throws IOException {
+        clear();
+        for (long id = in.getLong(); id != END_OF_USERS; id = in.getLong()) {
+            String email = in.getString();
+            String login = in.getString();
+            String name = in.getString();
+            long epochDay = in.getLong();
+            insert(new User(id, email, login, name, epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay)));
+            idSequence.accumulateAndGet(id, Math::max);
+        }
+        friendships.readFrom(in);
+    }
+
+    private static WalRecord.UserAdded state(User user) {
+        return new WalRecord.UserAdded(user.getId(), user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday());
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private void insert(User user) {
+        user.setFriends(new FriendSetView(friendships, user.getId()));
+        users.put(user.getId(), user);
+        idIndex.put(user.getId(), user);
+    }
+
+    private void clear() {
+        users.clear();
+        idIndex.clear();
+        friendships.clear();
+        idSequence.set(0);
     }
-}
\ No newline at end of file
+}
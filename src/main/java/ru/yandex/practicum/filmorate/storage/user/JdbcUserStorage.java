@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.util.CompactLongSet;
+import ru.yandex.practicum.filmorate.util.SortedLongArrays;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+@Slf4j
+public class JdbcUserStorage implements UserStorage {
+
+    private static final String SELECT_USERS = "SELECT id, email, login, name, birthday FROM users ";
+
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> new User(rs.getLong("id"),
+            rs.getString("email"), rs.getString("login"), rs.getString("name"),
+            rs.getObject("birthday", LocalDate.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpleJdbcInsert userInsert;
+
+    public JdbcUserStorage(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    public Collection<User> getUsers() {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + "ORDER BY id", USER_MAPPER);
+        Map<Long, User> byId = index(users);
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id",
+                rs -> {
+                    attachFriends(byId, rs);
+                    return null;
+                });
+        return users;
+    }
+
+    public Collection<User> getUsers(long after, int limit) {
+        return withFriends(jdbcTemplate.query(SELECT_USERS + "WHERE id > ? ORDER BY id LIMIT ?", USER_MAPPER,
+                after, limit));
+    }
+
+    public Optional<User> getUser(Long id) {
+        return withFriends(jdbcTemplate.query(SELECT_USERS + "WHERE id = ?", USER_MAPPER, id)).stream().findFirst();
+    }
+
+    @Transactional
+    public User addUser(User user) {
+        Number id = userInsert.executeAndReturnKey(new MapSqlParameterSource()
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday()));
+        user.setId(id.longValue());
+        user.setFriends(new CompactLongSet());
+        log.info("Добавлен пользователь: {}", user);
+        return user;
+    }
+
+    @Transactional
+    public User updateUser(User newUser) {
+        int updated = jdbcTemplate.update("UPDATE users SET name = COALESCE(?, name), email = COALESCE(?, email), "
+                        + "birthday = COALESCE(?, birthday), login = COALESCE(?, login) WHERE id = ?",
+                newUser.getName(), newUser.getEmail(), newUser.getBirthday(), newUser.getLogin(), newUser.getId());
+        log.info("Обновлен пользователь: {}", newUser);
+        return updated == 0 ? null : getUser(newUser.getId()).orElse(null);
+    }
+
+    // Дружба хранится двумя строками, обе направленные связи пишутся одним пакетом
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) {
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)",
+                    edge(userId, friendId));
+            return true;
+        } catch (DuplicateKeyException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM friends WHERE user_id = ? AND friend_id = ?",
+                edge(userId, friendId));
+        return Arrays.stream(deleted).anyMatch(count -> count > 0);
+    }
+
+    public long[] getFriendIds(Long userId) {
+        return jdbcTemplate.queryForList("SELECT friend_id FROM friends WHERE user_id = ? ORDER BY friend_id",
+                Long.class, userId).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public long[] getFriendIds(Long userId, long after, int limit) {
+        return jdbcTemplate.queryForList("SELECT friend_id FROM friends WHERE user_id = ? AND friend_id > ? "
+                        + "ORDER BY friend_id LIMIT ?", Long.class, userId, after, limit)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Все списки загружаются одним запросом; строки приходят подряд по user_id
+    public long[][] getFriendIds(long[] userIds) {
+        long[][] result = new long[userIds.length][];
+        Arrays.fill(result, SortedLongArrays.EMPTY);
+        if (userIds.length == 0) {
+            return result;
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < userIds.length; i++) {
+            positions.put(userIds[i], i);
+        }
+        namedJdbcTemplate.query("SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids) "
+                        + "ORDER BY user_id, friend_id", Map.of("ids", positions.keySet()),
+                rs -> {
+                    long currentUser = -1;
+                    long[] friends = new long[16];
+                    int size = 0;
+                    while (rs.next()) {
+                        long userId = rs.getLong("user_id");
+                        if (userId != currentUser) {
+                            if (size > 0) {
+                                result[positions.get(currentUser)] = Arrays.copyOf(friends, size);
+                            }
+                            currentUser = userId;
+                            size = 0;
+                        }
+                        if (size == friends.length) {
+                            friends = Arrays.copyOf(friends, size * 2);
+                        }
+                        friends[size++] = rs.getLong("friend_id");
+                    }
+                    if (size > 0) {
+                        result[positions.get(currentUser)] = Arrays.copyOf(friends, size);
+                    }
+                    return null;
+                });
+        return result;
+    }
+
+    // Пересечение считает база по первичному ключу friends, списки друзей целиком не загружаются
+    public long[] getCommonFriendIds(Long userId, Long otherId) {
+        return jdbcTemplate.queryForList("SELECT f.friend_id FROM friends f "
+                        + "JOIN friends o ON o.user_id = ? AND o.friend_id = f.friend_id "
+                        + "WHERE f.user_id = ? ORDER BY f.friend_id", Long.class, otherId, userId)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Число друзей считается по индексу первичного ключа friends, сами id друзей не загружаются
+    public List<UserSummary> getUserSummaries(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, UserSummary> byId = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, email, login, name, birthday, "
+                        + "(SELECT COUNT(*) FROM friends f WHERE f.user_id = u.id) AS friends_count "
+                        + "FROM users u WHERE id IN (:ids)", Map.of("ids", Arrays.stream(ids).boxed().toList()),
+                rs -> {
+                    byId.put(rs.getLong("id"), new UserSummary(rs.getLong("id"), rs.getString("email"),
+                            rs.getString("login"), rs.getString("name"), rs.getObject("birthday", LocalDate.class),
+                            rs.getInt("friends_count")));
+                });
+        List<UserSummary> result = new ArrayList<>(byId.size());
+        for (long id : ids) {
+            Optional.ofNullable(byId.get(id)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    // Лайки удалённых пользователей уходят вместе с ними, поэтому счётчики фильмов тоже обнуляются.
+    // Сброс счётчика id — DDL, H2 фиксирует транзакцию перед ним сам, поэтому он выполняется после её фиксации
+    public void clearData() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM friends");
+            jdbcTemplate.update("DELETE FROM film_likes");
+            jdbcTemplate.update("UPDATE films SET likes_count = 0");
+            jdbcTemplate.update("DELETE FROM users");
+        });
+        jdbcTemplate.update("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+    }
+
+    // Строка (меньший id, больший id) всегда пишется первой, в каком бы порядке ни пришёл запрос: иначе встречные
+    // addFriend(A, B) и addFriend(B, A) блокируют строки в разном порядке и ждут друг друга
+    private static List<Object[]> edge(long userId, long friendId) {
+        long low = Math.min(userId, friendId);
+        long high = Math.max(userId, friendId);
+        return List.of(new Object[]{low, high}, new Object[]{high, low});
+    }
+
+    // Друзья всех пользователей списка загружаются одним запросом
+    private List<User> withFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, User> byId = index(users);
+        namedJdbcTemplate.query("SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids) "
+                        + "ORDER BY user_id, friend_id", Map.of("ids", byId.keySet()),
+                rs -> {
+                    attachFriends(byId, rs);
+                    return null;
+                });
+        return users;
+    }
+
+    private static Map<Long, User> index(List<User> users) {
+        Map<Long, User> byId = new LinkedHashMap<>();
+        for (User user : users) {
+            user.setFriends(new CompactLongSet());
+            byId.put(user.getId(), user);
+        }
+        return byId;
+    }
+
+    // Строки приходят отсортированными по user_id и friend_id, поэтому друзья пользователя собираются подряд
+    private static void attachFriends(Map<Long, User> users, ResultSet rs) throws SQLException {
+        long currentUser = -1;
+        long[] friends = new long[16];
+        int size = 0;
+        while (rs.next()) {
+            long userId = rs.getLong("user_id");
+            if (userId != currentUser) {
+                setFriends(users.get(currentUser), friends, size);
+                currentUser = userId;
+                size = 0;
+            }
+            if (size == friends.length) {
+                friends = Arrays.copyOf(friends, size * 2);
+            }
+            friends[size++] = rs.getLong("friend_id");
+        }
+        setFriends(users.get(currentUser), friends, size);
+    }
+
+    private static void setFriends(User user, long[] friends, int size) {
+        if (user != null) {
+            user.setFriends(CompactLongSet.fromSorted(Arrays.copyOf(friends, size)));
+        }
+    }
+}
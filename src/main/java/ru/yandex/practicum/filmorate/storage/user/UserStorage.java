@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserStorage {
@@ -13,7 +15,27 @@ public interface UserStorage {
 
     Collection<User> getUsers();
 
+    // Страница пользователей с id больше after, по возрастанию id
+    Collection<User> getUsers(long after, int limit);
+
     Optional<User> getUser(Long id);
 
+    boolean addFriend(Long userId, Long friendId);
+
+    boolean removeFriend(Long userId, Long friendId);
+
+    long[] getFriendIds(Long userId);
+
+    long[] getFriendIds(Long userId, long after, int limit);
+
+    // Списки друзей сразу нескольких пользователей (id без повторов), в порядке userIds
+    long[][] getFriendIds(long[] userIds);
+
+    // Общие друзья двух пользователей по возрастанию id
+    long[] getCommonFriendIds(Long userId, Long otherId);
+
+    // Пользователи в порядке ids с числом друзей вместо их списка; несуществующие id пропускаются
+    List<UserSummary> getUserSummaries(long[] ids);
+
     void clearData();
 }
\ No newline at end of file
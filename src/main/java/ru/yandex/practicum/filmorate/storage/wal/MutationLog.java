@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+/*
+ * Журнал изменений хранилища.
+ * append вызывается внутри критической секции изменения, чтобы порядок записей совпадал с порядком изменений,
+ * а awaitDurable — уже после выхода из неё, чтобы ожидание fsync не держало блокировки.
+ */
+public interface MutationLog {
+
+    MutationLog NOOP = new MutationLog() {
+        @Override
+        public long append(WalRecord record) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long lsn) {
+        }
+    };
+
+    // Возвращает LSN — позицию конца записи в журнале
+    long append(WalRecord record);
+
+    void awaitDurable(long lsn);
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Чтение снимка, записанного SnapshotWriter, через отображённый в память файл. Массивы читаются пакетно
+public final class SnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long contentSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    SnapshotReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        contentSize = channel.size() - Long.BYTES;
+        if (contentSize < 0) {
+            channel.close();
+            throw new IOException("Снимок " + path + " слишком короткий");
+        }
+        region = map(0);
+    }
+
+    // Сверяет CRC32C содержимого с записанной в конце файла
+    boolean verifyChecksum() throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long start = 0; start < contentSize; start += SnapshotWriter.REGION_SIZE) {
+            long size = Math.min(SnapshotWriter.REGION_SIZE, contentSize - start);
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, start, size));
+        }
+        long expected = channel.map(FileChannel.MapMode.READ_ONLY, contentSize, Long.BYTES).getLong();
+        return crc.getValue() == expected;
+    }
+
+    public int getInt() throws IOException {
+        return ensure(Integer.BYTES).getInt();
+    }
+
+    public long getLong() throws IOException {
+        return ensure(Long.BYTES).getLong();
+    }
+
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int read = 0; read < length; ) {
+            int chunk = Math.min(length - read, SnapshotWriter.REGION_SIZE);
+            ensure(chunk).get(bytes, read, chunk);
+            read += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void getInts(int[] values, int from, int to) throws IOException {
+        for (int i = from; i < to; ) {
+            int chunk = Math.min(to - i, SnapshotWriter.REGION_SIZE / Integer.BYTES);
+            MappedByteBuffer source = ensure(chunk * Integer.BYTES);
+            source.asIntBuffer().get(values, i, chunk);
+            source.position(source.position() + chunk * Integer.BYTES);
+            i += chunk;
+        }
+    }
+
+    public void getLongs(long[] values, int from, int to) throws IOException {
+        for (int i = from; i < to; ) {
+            int chunk = Math.min(to - i, SnapshotWriter.REGION_SIZE / Long.BYTES);
+            MappedByteBuffer source = ensure(chunk * Long.BYTES);
+            source.asLongBuffer().get(values, i, chunk);
+            source.position(source.position() + chunk * Long.BYTES);
+            i += chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    private MappedByteBuffer ensure(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            regionStart += region.position();
+            if (regionStart + bytes > contentSize) {
+                throw new IOException("Снимок обрывается на позиции " + regionStart);
+            }
+            region = map(regionStart);
+        }
+        return region;
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        long size = Math.min(SnapshotWriter.REGION_SIZE, contentSize - start);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    }
+}
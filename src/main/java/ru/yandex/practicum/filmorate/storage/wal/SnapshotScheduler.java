@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Периодически сохраняет снимок хранилищ в фоновом потоке, не останавливая запись.
+ * Позиция журнала фиксируется до начала чтения хранилищ: все изменения до неё уже применены, а более поздние,
+ * даже если частично попали в снимок, будут повторены из журнала при восстановлении.
+ * Последний снимок делается при остановке приложения, чтобы следующий запуск не читал журнал вовсе.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+@Slf4j
+public class SnapshotScheduler {
+
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final List<Snapshottable> snapshottables;
+    private final Duration interval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private long lastSnapshotLsn = -1;
+
+    public SnapshotScheduler(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore,
+                             List<Snapshottable> snapshottables,
+                             @Value("${filmorate.wal.snapshot-interval}") Duration interval) {
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.snapshottables = snapshottables;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Снимок пишется, только если с прошлого снимка журнал вырос
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            long lsn = writeAheadLog.lastLsn();
+            if (lsn == lastSnapshotLsn) {
+                return;
+            }
+            long startedAt = System.nanoTime();
+            // снимок не должен опережать журнал на диске, иначе после сбоя новые записи лягут до его позиции
+            writeAheadLog.awaitDurable(lsn);
+            snapshotStore.write(lsn, snapshottables);
+            lastSnapshotLsn = lsn;
+            log.info("Сохранён снимок на позиции журнала {} за {} мс", lsn,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        checkpointQuietly();
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось сохранить снимок: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+
+/*
+ * Файл снимка хранилищ. Формат: MAGIC, VERSION, LSN журнала, с которого нужно продолжать восстановление,
+ * затем разделы хранилищ (имя раздела и его содержимое) и CRC32C в конце.
+ * Новый снимок пишется во временный файл и атомарно подменяет старый только после полной записи на диск.
+ */
+@Slf4j
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x464D5331;
+    private static final int VERSION = 1;
+
+    private final Path path;
+
+    public SnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    public void write(long lsn, List<? extends Snapshottable> parts) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(path.getFileName() + ".tmp");
+        try (SnapshotWriter out = new SnapshotWriter(temporary)) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(lsn);
+            out.putInt(parts.size());
+            for (Snapshottable part : ordered(parts)) {
+                out.putString(part.snapshotSection());
+                part.writeSnapshot(out);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // LSN журнала, на котором сделан загруженный снимок, или пусто, если снимка нет или он повреждён
+    public OptionalLong load(List<? extends Snapshottable> parts) throws IOException {
+        if (!Files.exists(path)) {
+            return OptionalLong.empty();
+        }
+        try (SnapshotReader in = new SnapshotReader(path)) {
+            if (!in.verifyChecksum()) {
+                log.warn("Снимок {} повреждён: контрольная сумма не совпадает", path);
+                return OptionalLong.empty();
+            }
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                log.warn("Снимок {} имеет неизвестный формат", path);
+                return OptionalLong.empty();
+            }
+            long lsn = in.getLong();
+            int sections = in.getInt();
+            if (sections != parts.size()) {
+                throw new IOException("В снимке " + path + " разделов: " + sections + ", ожидалось: " + parts.size());
+            }
+            for (Snapshottable part : ordered(parts)) {
+                String section = in.getString();
+                if (!part.snapshotSection().equals(section)) {
+                    throw new IOException("В снимке " + path + " раздел " + section + " вместо "
+                            + part.snapshotSection());
+                }
+                part.readSnapshot(in);
+            }
+            return OptionalLong.of(lsn);
+        }
+    }
+
+    private static List<Snapshottable> ordered(List<? extends Snapshottable> parts) {
+        List<Snapshottable> result = new ArrayList<>(parts);
+        result.sort(Comparator.comparing(Snapshottable::snapshotSection));
+        return result;
+    }
+}
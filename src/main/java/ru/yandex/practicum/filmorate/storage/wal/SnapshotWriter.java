@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/*
+ * Последовательная запись снимка через отображённый в память файл. Файл отображается окнами по REGION_SIZE байт,
+ * примитивы никогда не пересекают границу окна. Контрольная сумма CRC32C всего содержимого дописывается в конец
+ * при закрытии, после чего файл обрезается до фактического размера.
+ */
+public final class SnapshotWriter implements Closeable {
+
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    SnapshotWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+    }
+
+    public void putInt(int value) throws IOException {
+        ensure(Integer.BYTES).putInt(value);
+    }
+
+    public void putLong(long value) throws IOException {
+        ensure(Long.BYTES).putLong(value);
+    }
+
+    // -1 вместо длины — null
+    public void putString(String value) throws IOException {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        for (int written = 0; written < bytes.length; ) {
+            int chunk = Math.min(bytes.length - written, REGION_SIZE);
+            ensure(chunk).put(bytes, written, chunk);
+            written += chunk;
+        }
+    }
+
+    public void putInts(int[] values, int from, int to) throws IOException {
+        for (int i = from; i < to; ) {
+            int chunk = Math.min(to - i, REGION_SIZE / Integer.BYTES);
+            MappedByteBuffer target = ensure(chunk * Integer.BYTES);
+            target.asIntBuffer().put(values, i, chunk);
+            target.position(target.position() + chunk * Integer.BYTES);
+            i += chunk;
+        }
+    }
+
+    public void putLongs(long[] values, int from, int to) throws IOException {
+        for (int i = from; i < to; ) {
+            int chunk = Math.min(to - i, REGION_SIZE / Long.BYTES);
+            MappedByteBuffer target = ensure(chunk * Long.BYTES);
+            target.asLongBuffer().put(values, i, chunk);
+            target.position(target.position() + chunk * Long.BYTES);
+            i += chunk;
+        }
+    }
+
+    // Дописывает контрольную сумму и сбрасывает файл на диск
+    @Override
+    public void close() throws IOException {
+        try {
+            MappedByteBuffer target = ensure(Long.BYTES);
+            checksumRegion();
+            target.putLong(crc.getValue());
+            target.force();
+            long size = regionStart + region.position();
+            region = null;
+            channel.truncate(size);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private MappedByteBuffer ensure(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            checksumRegion();
+            region.force();
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, bytes));
+        }
+        return region;
+    }
+
+    private void checksumRegion() {
+        crc.update(region.duplicate().flip());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.io.IOException;
+
+/*
+ * Хранилище, которое умеет сохранять своё состояние в снимок и загружаться из него.
+ * Снимок нечёткий: он пишется без остановки изменений, поэтому может содержать часть изменений, сделанных
+ * после фиксации позиции журнала. Корректность обеспечивает то, что изменение сначала применяется и только потом
+ * пишется в журнал, а повтор записей журнала идемпотентен.
+ */
+public interface Snapshottable {
+
+    // Имя раздела в снимке, сверяется при загрузке
+    String snapshotSection();
+
+    void writeSnapshot(SnapshotWriter out) throws IOException;
+
+    // Заменяет текущее состояние хранилища содержимым снимка
+    void readSnapshot(SnapshotReader in) throws IOException;
+}
@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.FilmAdded;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.FilmUpdated;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.FilmsCleared;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.FriendAdded;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.FriendRemoved;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.LikeAdded;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.LikeRemoved;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.UserAdded;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.UserUpdated;
+import ru.yandex.practicum.filmorate.storage.wal.WalRecord.UsersCleared;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Двоичное представление записи: байт типа и поля в фиксированном порядке
+final class WalCodec {
+
+    private static final byte FILM_ADDED = 1;
+    private static final byte FILM_UPDATED = 2;
+    private static final byte LIKE_ADDED = 3;
+    private static final byte LIKE_REMOVED = 4;
+    private static final byte FILMS_CLEARED = 5;
+    private static final byte USER_ADDED = 6;
+    private static final byte USER_UPDATED = 7;
+    private static final byte FRIEND_ADDED = 8;
+    private static final byte FRIEND_REMOVED = 9;
+    private static final byte USERS_CLEARED = 10;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private WalCodec() {
+    }
+
+    static byte[] encode(WalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            switch (record) {
+                case FilmAdded film -> {
+                    out.writeByte(FILM_ADDED);
+                    out.writeLong(film.id());
+                    writeFilmFields(out, film.name(), film.description(), film.releaseDate(), film.duration());
+                    out.writeInt(film.likes().length);
+                    for (long userId : film.likes()) {
+                        out.writeLong(userId);
+                    }
+                }
+                case FilmUpdated film -> {
+                    out.writeByte(FILM_UPDATED);
+                    out.writeLong(film.id());
+                    writeFilmFields(out, film.name(), film.description(), film.releaseDate(), film.duration());
+                }
+                case LikeAdded like -> writePair(out, LIKE_ADDED, like.filmId(), like.userId());
+                case LikeRemoved like -> writePair(out, LIKE_REMOVED, like.filmId(), like.userId());
+                case FilmsCleared ignored -> out.writeByte(FILMS_CLEARED);
+                case UserAdded user -> {
+                    out.writeByte(USER_ADDED);
+                    writeUserFields(out, user.id(), user.email(), user.login(), user.name(), user.birthday());
+                }
+                case UserUpdated user -> {
+                    out.writeByte(USER_UPDATED);
+                    writeUserFields(out, user.id(), user.email(), user.login(), user.name(), user.birthday());
+                }
+                case FriendAdded friend -> writePair(out, FRIEND_ADDED, friend.userId(), friend.friendId());
+                case FriendRemoved friend -> writePair(out, FRIEND_REMOVED, friend.userId(), friend.friendId());
+                case UsersCleared ignored -> out.writeByte(USERS_CLEARED);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static WalRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        return switch (type) {
+            case FILM_ADDED -> {
+                long id = in.readLong();
+                String name = readString(in);
+                String description = readString(in);
+                LocalDate releaseDate = readDate(in);
+                Integer duration = readInteger(in);
+                long[] likes = new long[in.readInt()];
+                for (int i = 0; i < likes.length; i++) {
+                    likes[i] = in.readLong();
+                }
+                yield new FilmAdded(id, name, description, releaseDate, duration, likes);
+            }
+            case FILM_UPDATED -> new FilmUpdated(in.readLong(), readString(in), readString(in), readDate(in),
+                    readInteger(in));
+            case LIKE_ADDED -> new LikeAdded(in.readLong(), in.readLong());
+            case LIKE_REMOVED -> new LikeRemoved(in.readLong(), in.readLong());
+            case FILMS_CLEARED -> new FilmsCleared();
+            case USER_ADDED -> new UserAdded(in.readLong(), readString(in), readString(in), readString(in),
+                    readDate(in));
+            case USER_UPDATED -> new UserUpdated(in.readLong(), readString(in), readString(in), readString(in),
+                    readDate(in));
+            case FRIEND_ADDED -> new FriendAdded(in.readLong(), in.readLong());
+            case FRIEND_REMOVED -> new FriendRemoved(in.readLong(), in.readLong());
+            case USERS_CLEARED -> new UsersCleared();
+            default -> throw new IOException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    private static void writeFilmFields(DataOutputStream out, String name, String description, LocalDate releaseDate,
+                                        Integer duration) throws IOException {
+        writeString(out, name);
+        writeString(out, description);
+        writeDate(out, releaseDate);
+        out.writeBoolean(duration != null);
+        if (duration != null) {
+            out.writeInt(duration);
+        }
+    }
+
+    private static void writeUserFields(DataOutputStream out, long id, String email, String login, String name,
+                                        LocalDate birthday) throws IOException {
+        out.writeLong(id);
+        writeString(out, email);
+        writeString(out, login);
+        writeString(out, name);
+        writeDate(out, birthday);
+    }
+
+    private static void writePair(DataOutputStream out, byte type, long first, long second) throws IOException {
+        out.writeByte(type);
+        out.writeLong(first);
+        out.writeLong(second);
+    }
+
+    // writeUTF ограничен 64 КБ, поэтому длина пишется отдельно; -1 — null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class WalConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(@Value("${filmorate.wal.path}") Path path) throws IOException {
+        return new WriteAheadLog(path);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+    public SnapshotStore snapshotStore(@Value("${filmorate.wal.snapshot-path}") Path path) {
+        return new SnapshotStore(path);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "false", matchIfMissing = true)
+    public MutationLog noopMutationLog() {
+        return MutationLog.NOOP;
+    }
+}
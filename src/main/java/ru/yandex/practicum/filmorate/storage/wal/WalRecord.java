@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.time.LocalDate;
+
+// Изменение хранилища, записываемое в журнал. Состояние фильма и пользователя пишется целиком, поэтому повтор записи идемпотентен
+public sealed interface WalRecord {
+
+    record FilmAdded(long id, String name, String description, LocalDate releaseDate, Integer duration,
+                     long[] likes) implements WalRecord {
+    }
+
+    record FilmUpdated(long id, String name, String description, LocalDate releaseDate,
+                       Integer duration) implements WalRecord {
+    }
+
+    record LikeAdded(long filmId, long userId) implements WalRecord {
+    }
+
+    record LikeRemoved(long filmId, long userId) implements WalRecord {
+    }
+
+    record FilmsCleared() implements WalRecord {
+    }
+
+    record UserAdded(long id, String email, String login, String name, LocalDate birthday) implements WalRecord {
+    }
+
+    record UserUpdated(long id, String email, String login, String name, LocalDate birthday) implements WalRecord {
+    }
+
+    record FriendAdded(long userId, long friendId) implements WalRecord {
+    }
+
+    record FriendRemoved(long userId, long friendId) implements WalRecord {
+    }
+
+    record UsersCleared() implements WalRecord {
+    }
+}
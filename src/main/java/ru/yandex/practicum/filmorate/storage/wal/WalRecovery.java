@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.OptionalLong;
+
+// Восстанавливает хранилища из снимка и хвоста журнала после создания бинов, но до запуска веб-сервера
+@Component
+@ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class WalRecovery implements SmartInitializingSingleton {
+
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final List<Snapshottable> snapshottables;
+    private final List<WalReplayTarget> targets;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long startedAt = System.nanoTime();
+        try {
+            OptionalLong snapshotLsn = snapshotStore.load(snapshottables);
+            long snapshotLoadedAt = System.nanoTime();
+            long count = writeAheadLog.replay(snapshotLsn.orElse(0), record -> {
+                for (WalReplayTarget target : targets) {
+                    target.replay(record);
+                }
+            });
+            long finishedAt = System.nanoTime();
+            if (snapshotLsn.isPresent()) {
+                log.info("Загружен снимок на позиции журнала {} за {} мс", snapshotLsn.getAsLong(),
+                        (snapshotLoadedAt - startedAt) / 1_000_000);
+            }
+            log.info("Из журнала восстановлено записей: {} за {} мс", count, (finishedAt - snapshotLoadedAt) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить данные из журнала", e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+// Хранилище, состояние которого восстанавливается из журнала. Записи применяются без повторной записи в журнал
+public interface WalReplayTarget {
+
+    void replay(WalRecord record);
+}
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/*
+ * Журнал упреждающей записи в одном файле. Формат записи: длина тела (int), CRC32 тела (int), тело (WalCodec).
+ * append только дописывает запись в файл, не дожидаясь диска. Групповая фиксация: awaitDurable вызывает fsync
+ * за всех, кто успел дописать свои записи, а потоки, пришедшие во время fsync, ждут на syncLock и затем
+ * одним fsync фиксируют всё накопленное. При большом потоке записей один fsync покрывает целую пачку.
+ * Перед первой записью журнал нужно прочитать через replay: он же обрезает недописанную запись в хвосте.
+ * После загрузки снимка читается только хвост журнала, начиная с LSN снимка.
+ */
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile long written;
+    private volatile long durable;
+    private volatile boolean replayed;
+    private volatile boolean failed;
+    private long syncCount;
+
+    public WriteAheadLog(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    public long replay(Consumer<WalRecord> consumer) throws IOException {
+        return replay(0, consumer);
+    }
+
+    // Передаёт consumer все целые записи начиная с позиции fromLsn и возвращает их количество
+    public long replay(long fromLsn, Consumer<WalRecord> consumer) throws IOException {
+        appendLock.lock();
+        try {
+            if (replayed) {
+                throw new IllegalStateException("Журнал " + path + " уже прочитан");
+            }
+            long size = channel.size();
+            if (fromLsn > size) {
+                throw new IOException("Журнал " + path + " короче позиции снимка " + fromLsn + ": " + size + " байт");
+            }
+            long position = fromLsn;
+            long count = 0;
+            channel.position(fromLsn);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel),
+                    1 << 16));
+            CRC32 crc = new CRC32();
+            while (position < size) {
+                byte[] payload = readPayload(in, size - position, crc);
+                if (payload == null) {
+                    log.warn("Журнал {}: недописанная запись на позиции {}, хвост длиной {} байт отброшен",
+                            path, position, size - position);
+                    channel.truncate(position);
+                    channel.force(false);
+                    break;
+                }
+                consumer.accept(WalCodec.decode(payload));
+                position += HEADER_SIZE + payload.length;
+                count++;
+            }
+            channel.position(position);
+            written = position;
+            durable = position;
+            replayed = true;
+            return count;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // LSN последней дописанной записи
+    public long lastLsn() {
+        return written;
+    }
+
+    @Override
+    public long append(WalRecord record) {
+        byte[] payload = WalCodec.encode(record);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        appendLock.lock();
+        try {
+            checkWritable();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += HEADER_SIZE + payload.length;
+            return written;
+        } catch (IOException e) {
+            failed = true;
+            throw new UncheckedIOException("Не удалось записать в журнал " + path, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long lsn) {
+        if (lsn <= durable) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // пока ждали блокировку, предыдущий fsync мог зафиксировать и нашу запись
+            if (lsn <= durable) {
+                return;
+            }
+            long target = written;
+            channel.force(false);
+            durable = target;
+            syncCount++;
+        } catch (IOException e) {
+            failed = true;
+            throw new UncheckedIOException("Не удалось сбросить журнал " + path + " на диск", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    long syncCount() {
+        syncLock.lock();
+        try {
+            return syncCount;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private void checkWritable() {
+        if (!replayed) {
+            throw new IllegalStateException("Журнал " + path + " не восстановлен перед записью");
+        }
+        if (failed) {
+            throw new IllegalStateException("Журнал " + path + " недоступен после ошибки записи");
+        }
+    }
+
+    // null, если запись в хвосте недописана или повреждена
+    private static byte[] readPayload(DataInputStream in, long remaining, CRC32 crc) throws IOException {
+        if (remaining < HEADER_SIZE) {
+            return null;
+        }
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length <= 0 || length > MAX_RECORD_SIZE || length > remaining - HEADER_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+}
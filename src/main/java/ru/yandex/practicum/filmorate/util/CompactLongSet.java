@@ -0,0 +1,595 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+ * Множество long без упаковки в Long.
+ * Небольшие множества хранятся отсортированным массивом long. Большие — сжатой битовой картой в духе Roaring:
+ * значения разбиты на блоки по 65536, разреженный блок хранится отсортированным массивом 16-битных смещений,
+ * плотный — битовой картой из 1024 long. Большие множества, разбросанные по слишком многим блокам, хранятся
+ * кусками — отсортированными массивами до CHUNK_MAX_SIZE значений: изменение копирует один кусок и список
+ * кусков, а не всё множество.
+ * Каждое изменение публикует новый неизменяемый снимок (копируется только затронутый блок), поэтому читатели,
+ * например сериализация, никогда не видят множество в промежуточном состоянии. Сами изменения должны выполняться
+ * под внешней блокировкой — в хранилищах это блокировка записи фильма.
+ */
+public class CompactLongSet extends AbstractSet<Long> {
+
+    private static final int BLOCK_BITS = 16;
+    private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+    private static final int BITMAP_WORDS = (1 << BLOCK_BITS) / Long.SIZE;
+    private static final int SPARSE_MAX_SIZE = 4096;
+    private static final int ARRAY_MAX_SIZE = 64;
+    private static final int ARRAY_MAX_SIZE_AFTER_SHRINK = 32;
+    private static final int CHUNK_SIZE = 1024;
+    private static final int CHUNK_MAX_SIZE = 2 * CHUNK_SIZE;
+
+    private volatile Snapshot snapshot = SortedArray.EMPTY;
+
+    public CompactLongSet() {
+    }
+
+    public CompactLongSet(long... values) {
+        for (long value : values) {
+            add(value);
+        }
+    }
+
+    // Строит множество из отсортированного массива без повторов за один проход, массив не копируется
+    public static CompactLongSet fromSorted(long[] sortedValues) {
+        CompactLongSet set = new CompactLongSet();
+        set.snapshot = new SortedArray(sortedValues).compact();
+        return set;
+    }
+
+    public boolean add(long value) {
+        Snapshot current = snapshot;
+        Snapshot next = current.with(value);
+        if (next == current) {
+            return false;
+        }
+        snapshot = next.compact();
+        return true;
+    }
+
+    public boolean remove(long value) {
+        Snapshot current = snapshot;
+        Snapshot next = current.without(value);
+        if (next == current) {
+            return false;
+        }
+        snapshot = next.compact();
+        return true;
+    }
+
+    /*
+     * Изменения по порядку — добавить values[i], если add[i], иначе удалить — с публикацией одного снимка.
+     * changed[i] — изменило ли множество i-е изменение. Одно изменение копирует около куска или блока, поэтому
+     * итоговые добавления и удаления, сравнимые по числу с размером множества / CHUNK_SIZE, вливаются в него
+     * одним слиянием, а немногие применяются по одному.
+     */
+    public boolean[] change(long[] values, boolean[] add) {
+        boolean[] changed = new boolean[values.length];
+        long[] distinct = values.clone();
+        Arrays.sort(distinct);
+        int count = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[count++] = distinct[i];
+            }
+        }
+        Snapshot current = snapshot;
+        boolean[] was = new boolean[count];
+        boolean[] is = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            was[i] = current.contains(distinct[i]);
+            is[i] = was[i];
+        }
+        int added = 0;
+        int removed = 0;
+        for (int i = 0; i < values.length; i++) {
+            int index = Arrays.binarySearch(distinct, 0, count, values[i]);
+            changed[i] = is[index] != add[i];
+            is[index] = add[i];
+        }
+        for (int i = 0; i < count; i++) {
+            if (is[i] != was[i]) {
+                if (is[i]) {
+                    added++;
+                } else {
+                    removed++;
+                }
+            }
+        }
+        if (added + removed == 0) {
+            return changed;
+        }
+        long[] toAdd = new long[added];
+        long[] toRemove = new long[removed];
+        added = 0;
+        removed = 0;
+        for (int i = 0; i < count; i++) {
+            if (is[i] && !was[i]) {
+                toAdd[added++] = distinct[i];
+            } else if (!is[i] && was[i]) {
+                toRemove[removed++] = distinct[i];
+            }
+        }
+        Snapshot next;
+        if ((long) (added + removed) * CHUNK_SIZE >= current.size()) {
+            long[] all = current.toLongArray();
+            next = new SortedArray(SortedLongArrays.merge(all, 0, all.length, toAdd, toRemove));
+        } else {
+            next = current;
+            for (long value : toAdd) {
+                next = next.with(value);
+            }
+            for (long value : toRemove) {
+                next = next.without(value);
+            }
+        }
+        snapshot = next.compact();
+        return changed;
+    }
+
+    public boolean contains(long value) {
+        return snapshot.contains(value);
+    }
+
+    // Отсортированная копия значений
+    public long[] toLongArray() {
+        return snapshot.toLongArray();
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    @Override
+    public void clear() {
+        snapshot = SortedArray.EMPTY;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return snapshot.iterator();
+    }
+
+    private sealed interface Snapshot permits SortedArray, Chunks, Blocks {
+
+        int size();
+
+        boolean contains(long value);
+
+        // with и without возвращают this, если множество не изменилось
+        Snapshot with(long value);
+
+        Snapshot without(long value);
+
+        Snapshot compact();
+
+        long[] toLongArray();
+
+        PrimitiveIterator.OfLong iterator();
+    }
+
+    private record SortedArray(long[] values) implements Snapshot {
+
+        static final SortedArray EMPTY = new SortedArray(SortedLongArrays.EMPTY);
+
+        public int size() {
+            return values.length;
+        }
+
+        public boolean contains(long value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        public Snapshot with(long value) {
+            long[] next = SortedLongArrays.insert(values, value);
+            return next == values ? this : new SortedArray(next);
+        }
+
+        public Snapshot without(long value) {
+            long[] next = SortedLongArrays.remove(values, value);
+            return next == values ? this : new SortedArray(next);
+        }
+
+        // Массив копируется целиком на каждое изменение, поэтому большим он не остаётся: переходит в блоки
+        // или, если значения разбросаны по слишком многим блокам, в куски
+        public Snapshot compact() {
+            if (values.length <= ARRAY_MAX_SIZE) {
+                return this;
+            }
+            return Blocks.dense(values) ? Blocks.of(values, Blocks.countBlocks(values)) : Chunks.of(values);
+        }
+
+        public long[] toLongArray() {
+            return values.clone();
+        }
+
+        public PrimitiveIterator.OfLong iterator() {
+            return Arrays.stream(values).iterator();
+        }
+    }
+
+    // Отсортированные куски с первыми значениями в firsts; пустых кусков нет
+    private record Chunks(long[] firsts, long[][] chunks, int size) implements Snapshot {
+
+        static Chunks of(long[] sortedValues) {
+            int count = (sortedValues.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            long[] firsts = new long[count];
+            long[][] chunks = new long[count][];
+            for (int i = 0; i < count; i++) {
+                chunks[i] = Arrays.copyOfRange(sortedValues, i * CHUNK_SIZE,
+                        Math.min(sortedValues.length, (i + 1) * CHUNK_SIZE));
+                firsts[i] = chunks[i][0];
+            }
+            return new Chunks(firsts, chunks, sortedValues.length);
+        }
+
+        public boolean contains(long value) {
+            int chunk = chunkFor(value);
+            return chunk >= 0 && Arrays.binarySearch(chunks[chunk], value) >= 0;
+        }
+
+        public Snapshot with(long value) {
+            int chunk = Math.max(chunkFor(value), 0);
+            long[] next = SortedLongArrays.insert(chunks[chunk], value);
+            if (next == chunks[chunk]) {
+                return this;
+            }
+            if (next.length <= CHUNK_MAX_SIZE) {
+                return replace(chunk, next, size + 1);
+            }
+            // переполненный кусок делится пополам
+            int half = next.length / 2;
+            long[] nextFirsts = new long[firsts.length + 1];
+            long[][] nextChunks = new long[chunks.length + 1][];
+            System.arraycopy(firsts, 0, nextFirsts, 0, chunk);
+            System.arraycopy(firsts, chunk + 1, nextFirsts, chunk + 2, firsts.length - chunk - 1);
+            System.arraycopy(chunks, 0, nextChunks, 0, chunk);
+            System.arraycopy(chunks, chunk + 1, nextChunks, chunk + 2, chunks.length - chunk - 1);
+            nextChunks[chunk] = Arrays.copyOfRange(next, 0, half);
+            nextChunks[chunk + 1] = Arrays.copyOfRange(next, half, next.length);
+            nextFirsts[chunk] = nextChunks[chunk][0];
+            nextFirsts[chunk + 1] = nextChunks[chunk + 1][0];
+            return new Chunks(nextFirsts, nextChunks, size + 1);
+        }
+
+        public Snapshot without(long value) {
+            int chunk = chunkFor(value);
+            if (chunk < 0) {
+                return this;
+            }
+            long[] next = SortedLongArrays.remove(chunks[chunk], value);
+            if (next == chunks[chunk]) {
+                return this;
+            }
+            if (next.length > 0) {
+                return replace(chunk, next, size - 1);
+            }
+            long[] nextFirsts = new long[firsts.length - 1];
+            long[][] nextChunks = new long[chunks.length - 1][];
+            System.arraycopy(firsts, 0, nextFirsts, 0, chunk);
+            System.arraycopy(firsts, chunk + 1, nextFirsts, chunk, nextFirsts.length - chunk);
+            System.arraycopy(chunks, 0, nextChunks, 0, chunk);
+            System.arraycopy(chunks, chunk + 1, nextChunks, chunk, nextChunks.length - chunk);
+            return new Chunks(nextFirsts, nextChunks, size - 1);
+        }
+
+        // Плотность проверяется, когда размер достигает степени двойки: проход по всем значениям окупается
+        public Snapshot compact() {
+            if (size <= ARRAY_MAX_SIZE_AFTER_SHRINK) {
+                return new SortedArray(toLongArray());
+            }
+            if (Integer.bitCount(size) == 1) {
+                long[] values = toLongArray();
+                if (Blocks.dense(values)) {
+                    return Blocks.of(values, Blocks.countBlocks(values));
+                }
+            }
+            return this;
+        }
+
+        public long[] toLongArray() {
+            long[] values = new long[size];
+            int position = 0;
+            for (long[] chunk : chunks) {
+                System.arraycopy(chunk, 0, values, position, chunk.length);
+                position += chunk.length;
+            }
+            return values;
+        }
+
+        public PrimitiveIterator.OfLong iterator() {
+            return Arrays.stream(chunks).flatMapToLong(Arrays::stream).iterator();
+        }
+
+        // Кусок, в котором должно лежать value, или -1, если оно меньше всех значений
+        private int chunkFor(long value) {
+            int chunk = Arrays.binarySearch(firsts, value);
+            return chunk >= 0 ? chunk : -chunk - 2;
+        }
+
+        private Chunks replace(int chunk, long[] next, int nextSize) {
+            long[] nextFirsts = firsts.clone();
+            long[][] nextChunks = chunks.clone();
+            nextFirsts[chunk] = next[0];
+            nextChunks[chunk] = next;
+            return new Chunks(nextFirsts, nextChunks, nextSize);
+        }
+    }
+
+    // Блок — char[] (отсортированные смещения) или long[] (битовая карта)
+    private record Blocks(long[] keys, Object[] blocks, int size) implements Snapshot {
+
+        // Блок обходится примерно в 28 байт плюс 2 байта на значение, а массив — в 8 байт на значение,
+        // поэтому блоки выгодны, только если значения не разбросаны по слишком многим блокам
+        static boolean dense(long[] sortedValues) {
+            return countBlocks(sortedValues) * 5 < sortedValues.length;
+        }
+
+        static int countBlocks(long[] sortedValues) {
+            int blockCount = 0;
+            for (int i = 0; i < sortedValues.length; i++) {
+                if (i == 0 || key(sortedValues[i]) != key(sortedValues[i - 1])) {
+                    blockCount++;
+                }
+            }
+            return blockCount;
+        }
+
+        static Blocks of(long[] sortedValues, int blockCount) {
+            long[] keys = new long[blockCount];
+            Object[] blocks = new Object[blockCount];
+            int from = 0;
+            for (int block = 0; block < blockCount; block++) {
+                long key = key(sortedValues[from]);
+                int to = from;
+                while (to < sortedValues.length && key(sortedValues[to]) == key) {
+                    to++;
+                }
+                keys[block] = key;
+                blocks[block] = buildBlock(sortedValues, from, to);
+                from = to;
+            }
+            return new Blocks(keys, blocks, sortedValues.length);
+        }
+
+        public boolean contains(long value) {
+            int block = Arrays.binarySearch(keys, key(value));
+            return block >= 0 && blockContains(blocks[block], offset(value));
+        }
+
+        public Snapshot with(long value) {
+            int block = Arrays.binarySearch(keys, key(value));
+            int offset = offset(value);
+            if (block >= 0) {
+                Object current = blocks[block];
+                if (blockContains(current, offset)) {
+                    return this;
+                }
+                Object[] nextBlocks = blocks.clone();
+                nextBlocks[block] = blockWith(current, offset);
+                return new Blocks(keys, nextBlocks, size + 1);
+            }
+            int insertAt = -block - 1;
+            long[] nextKeys = new long[keys.length + 1];
+            Object[] nextBlocks = new Object[blocks.length + 1];
+            System.arraycopy(keys, 0, nextKeys, 0, insertAt);
+            System.arraycopy(keys, insertAt, nextKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(blocks, 0, nextBlocks, 0, insertAt);
+            System.arraycopy(blocks, insertAt, nextBlocks, insertAt + 1, blocks.length - insertAt);
+            nextKeys[insertAt] = key(value);
+            nextBlocks[insertAt] = new char[]{(char) offset};
+            return new Blocks(nextKeys, nextBlocks, size + 1);
+        }
+
+        public Snapshot without(long value) {
+            int block = Arrays.binarySearch(keys, key(value));
+            int offset = offset(value);
+            if (block < 0 || !blockContains(blocks[block], offset)) {
+                return this;
+            }
+            Object next = blockWithout(blocks[block], offset);
+            if (next instanceof char[] offsets && offsets.length == 0) {
+                long[] nextKeys = new long[keys.length - 1];
+                Object[] nextBlocks = new Object[blocks.length - 1];
+                System.arraycopy(keys, 0, nextKeys, 0, block);
+                System.arraycopy(keys, block + 1, nextKeys, block, nextKeys.length - block);
+                System.arraycopy(blocks, 0, nextBlocks, 0, block);
+                System.arraycopy(blocks, block + 1, nextBlocks, block, nextBlocks.length - block);
+                return new Blocks(nextKeys, nextBlocks, size - 1);
+            }
+            Object[] nextBlocks = blocks.clone();
+            nextBlocks[block] = next;
+            return new Blocks(keys, nextBlocks, size - 1);
+        }
+
+        public Snapshot compact() {
+            return size <= ARRAY_MAX_SIZE_AFTER_SHRINK ? new SortedArray(toLongArray()) : this;
+        }
+
+        public long[] toLongArray() {
+            long[] values = new long[size];
+            PrimitiveIterator.OfLong iterator = iterator();
+            for (int i = 0; i < size; i++) {
+                values[i] = iterator.nextLong();
+            }
+            return values;
+        }
+
+        public PrimitiveIterator.OfLong iterator() {
+            return new PrimitiveIterator.OfLong() {
+                private int block = -1;
+                private PrimitiveIterator.OfLong offsets = Arrays.stream(new long[0]).iterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!offsets.hasNext()) {
+                        if (++block >= blocks.length) {
+                            return false;
+                        }
+                        offsets = blockIterator(blocks[block]);
+                    }
+                    return true;
+                }
+
+                @Override
+                public long nextLong() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return (keys[block] << BLOCK_BITS) | offsets.nextLong();
+                }
+            };
+        }
+
+        private static Object buildBlock(long[] sortedValues, int from, int to) {
+            if (to - from <= SPARSE_MAX_SIZE) {
+                char[] offsets = new char[to - from];
+                for (int i = from; i < to; i++) {
+                    offsets[i - from] = (char) offset(sortedValues[i]);
+                }
+                return offsets;
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = from; i < to; i++) {
+                int offset = offset(sortedValues[i]);
+                words[offset >>> 6] |= 1L << offset;
+            }
+            return words;
+        }
+
+        private static boolean blockContains(Object block, int offset) {
+            if (block instanceof char[] offsets) {
+                return Arrays.binarySearch(offsets, (char) offset) >= 0;
+            }
+            return (((long[]) block)[offset >>> 6] & (1L << offset)) != 0;
+        }
+
+        private static Object blockWith(Object block, int offset) {
+            if (block instanceof char[] offsets) {
+                if (offsets.length == SPARSE_MAX_SIZE) {
+                    long[] words = new long[BITMAP_WORDS];
+                    for (char existing : offsets) {
+                        words[existing >>> 6] |= 1L << existing;
+                    }
+                    words[offset >>> 6] |= 1L << offset;
+                    return words;
+                }
+                int insertAt = -Arrays.binarySearch(offsets, (char) offset) - 1;
+                char[] next = new char[offsets.length + 1];
+                System.arraycopy(offsets, 0, next, 0, insertAt);
+                next[insertAt] = (char) offset;
+                System.arraycopy(offsets, insertAt, next, insertAt + 1, offsets.length - insertAt);
+                return next;
+            }
+            long[] words = ((long[]) block).clone();
+            words[offset >>> 6] |= 1L << offset;
+            return words;
+        }
+
+        private static Object blockWithout(Object block, int offset) {
+            if (block instanceof char[] offsets) {
+                int position = Arrays.binarySearch(offsets, (char) offset);
+                char[] next = new char[offsets.length - 1];
+                System.arraycopy(offsets, 0, next, 0, position);
+                System.arraycopy(offsets, position + 1, next, position, next.length - position);
+                return next;
+            }
+            long[] words = ((long[]) block).clone();
+            words[offset >>> 6] &= ~(1L << offset);
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > SPARSE_MAX_SIZE) {
+                return words;
+            }
+            char[] offsets = new char[cardinality];
+            int position = 0;
+            for (int word = 0; word < words.length; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    offsets[position++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return offsets;
+        }
+
+        private static PrimitiveIterator.OfLong blockIterator(Object block) {
+            if (block instanceof char[] offsets) {
+                return new PrimitiveIterator.OfLong() {
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < offsets.length;
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return offsets[position++];
+                    }
+                };
+            }
+            long[] words = (long[]) block;
+            return new PrimitiveIterator.OfLong() {
+                private int word;
+                private long bits = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (bits == 0) {
+                        if (++word >= words.length) {
+                            return false;
+                        }
+                        bits = words[word];
+                    }
+                    return true;
+                }
+
+                @Override
+                public long nextLong() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    return ((long) word << 6) | bit;
+                }
+            };
+        }
+
+        private static long key(long value) {
+            return value >> BLOCK_BITS;
+        }
+
+        private static int offset(long value) {
+            return (int) (value & BLOCK_MASK);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.util;
+
+/*
+ * k лучших пар (ключ, значение) без сортировки всех кандидатов: двоичная куча размера k на примитивных массивах,
+ * в корне худшая из отобранных пар. Лучше та, у которой больше значение, при равных — меньше ключ.
+ * Отбор из n кандидатов стоит O(n log k).
+ */
+public final class LongIntTopK {
+
+    private final long[] keys;
+    private final int[] values;
+    private int size;
+
+    public LongIntTopK(int k) {
+        keys = new long[k];
+        values = new int[k];
+    }
+
+    public void offer(long key, int value) {
+        if (size < keys.length) {
+            keys[size] = key;
+            values[size] = value;
+            siftUp(size++);
+        } else if (size > 0 && better(key, value, keys[0], values[0])) {
+            keys[0] = key;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public void offerAll(LongIntTopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.keys[i], other.values[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Отобранные ключи от лучшего к худшему; в значения values[i] записывается значение ключа i
+    public long[] drain(int[] values) {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = keys[0];
+            values[i] = this.values[0];
+            size--;
+            keys[0] = keys[size];
+            this.values[0] = this.values[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private static boolean better(long key, int value, long otherKey, int otherValue) {
+        return value > otherValue || value == otherValue && key < otherKey;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(keys[parent], values[parent], keys[index], values[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(keys[worst], values[worst], keys[left], values[left])) {
+                worst = left;
+            }
+            if (right < size && better(keys[worst], values[worst], keys[right], values[right])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
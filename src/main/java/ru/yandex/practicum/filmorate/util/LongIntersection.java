@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/*
+ * Пересечение отсортированных массивов long без повторов.
+ * Стратегия выбирается по размерам входов:
+ * - сильно разные размеры — поиск элементов меньшего массива в большем с галопированием, O(m log(n / m));
+ * - оба массива плотно лежат в общем диапазоне id — побитовое AND двух битовых карт;
+ * - иначе — обычное линейное слияние, O(m + n).
+ */
+public final class LongIntersection {
+
+    static final int GALLOP_RATIO = 32;
+    static final int BITMAP_MAX_BITS_PER_VALUE = 16;
+
+    private LongIntersection() {
+    }
+
+    public static long[] intersect(long[] first, long[] second) {
+        long[] small = first.length <= second.length ? first : second;
+        long[] large = small == first ? second : first;
+        if (small.length == 0) {
+            return SortedLongArrays.EMPTY;
+        }
+        long from = Math.max(small[0], large[0]);
+        long to = Math.min(small[small.length - 1], large[large.length - 1]);
+        if (from > to) {
+            return SortedLongArrays.EMPTY;
+        }
+        if (large.length / small.length >= GALLOP_RATIO) {
+            return gallop(small, large);
+        }
+        if (to - from < (long) BITMAP_MAX_BITS_PER_VALUE * small.length) {
+            return bitmapAnd(small, large, from, to);
+        }
+        return merge(small, large);
+    }
+
+    static long[] gallop(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int size = 0;
+        int low = 0;
+        for (long value : small) {
+            int step = 1;
+            int high = low;
+            while (high < large.length && large[high] < value) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(large, low, Math.min(high + 1, large.length), value);
+            if (position >= 0) {
+                result[size++] = value;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+            if (low >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    static long[] merge(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            long a = first[i];
+            long b = second[j];
+            if (a == b) {
+                result[size++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    static long[] bitmapAnd(long[] first, long[] second, long from, long to) {
+        int words = (int) ((to - from) >>> 6) + 1;
+        long[] bits = toBitmap(first, from, to, words);
+        long[] other = toBitmap(second, from, to, words);
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            bits[word] &= other[word];
+            count += Long.bitCount(bits[word]);
+        }
+        long[] result = new long[count];
+        int size = 0;
+        for (int word = 0; word < words; word++) {
+            for (long value = bits[word]; value != 0; value &= value - 1) {
+                result[size++] = from + ((long) word << 6) + Long.numberOfTrailingZeros(value);
+            }
+        }
+        return result;
+    }
+
+    private static long[] toBitmap(long[] values, long from, long to, int words) {
+        long[] bits = new long[words];
+        int start = Arrays.binarySearch(values, from);
+        for (int i = start >= 0 ? start : -start - 1; i < values.length && values[i] <= to; i++) {
+            long offset = values[i] - from;
+            bits[(int) (offset >>> 6)] |= 1L << offset;
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/*
+ * Кольцевой буфер последних capacity значений с номерами 1, 2, 3... без блокировок.
+ * Писатель берёт номер атомарным инкрементом и кладёт значение в ячейку номер % capacity, затирая значение
+ * на capacity номеров старше; писатели друг друга не ждут. Читатель хранит свой курсор сам и читает по номеру:
+ * ячейка помнит номер значения, поэтому ещё не записанное и уже затёртое значение не выдаются за нужное.
+ */
+public final class SequencedRing<T> {
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+
+    // capacity округляется вверх до степени двойки
+    public SequencedRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость должна быть положительной: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    // Значение строится по выданному ему номеру, номер возвращается
+    public long publish(LongFunction<T> value) {
+        long sequence = claimed.incrementAndGet();
+        slots.setRelease((int) (sequence & mask), new Slot<>(sequence, value.apply(sequence)));
+        return sequence;
+    }
+
+    // Значение с номером sequence или null, если оно ещё не записано или уже затёрто
+    public T get(long sequence) {
+        Slot<T> slot = slots.getAcquire((int) (sequence & mask));
+        return slot != null && slot.sequence == sequence ? slot.value : null;
+    }
+
+    // Номер последнего выданного писателю значения; само значение может быть ещё не записано
+    public long last() {
+        return claimed.get();
+    }
+
+    // Номер самого старого значения, которое ещё может быть в буфере
+    public long first() {
+        return Math.max(1, claimed.get() - mask);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private record Slot<T>(long sequence, T value) {
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+// Операции над отсортированными массивами long без повторов. Исходные массивы не изменяются
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    public static boolean contains(long[] values, long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    // Возвращает тот же массив, если значение уже есть
+    public static long[] insert(long[] values, long value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+        int insertAt = -position - 1;
+        long[] next = new long[values.length + 1];
+        System.arraycopy(values, 0, next, 0, insertAt);
+        next[insertAt] = value;
+        System.arraycopy(values, insertAt, next, insertAt + 1, values.length - insertAt);
+        return next;
+    }
+
+    // Возвращает тот же массив, если значения нет
+    public static long[] remove(long[] values, long value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return values;
+        }
+        long[] next = new long[values.length - 1];
+        System.arraycopy(values, 0, next, 0, position);
+        System.arraycopy(values, position + 1, next, position, next.length - position);
+        return next;
+    }
+
+    // (base[from, to) \ removed) ∪ added, результат отсортирован
+    public static long[] merge(long[] base, int from, int to, long[] added, long[] removed) {
+        if (added.length == 0 && removed.length == 0) {
+            return Arrays.copyOfRange(base, from, to);
+        }
+        long[] result = new long[to - from - removed.length + added.length];
+        int size = 0;
+        int a = 0;
+        int r = 0;
+        for (int i = from; i < to; i++) {
+            long value = base[i];
+            while (r < removed.length && removed[r] < value) {
+                r++;
+            }
+            if (r < removed.length && removed[r] == value) {
+                continue;
+            }
+            while (a < added.length && added[a] < value) {
+                result[size++] = added[a++];
+            }
+            result[size++] = value;
+        }
+        while (a < added.length) {
+            result[size++] = added[a++];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // Первые limit значений больше after из (base[from, to) \ removed) ∪ added; added не пересекается с base.
+    // Стоимость не зависит от того, сколько значений лежит до after
+    public static long[] mergeAfter(long[] base, int from, int to, long[] added, long[] removed, long after,
+                                    int limit) {
+        int i = upperBound(base, from, to, after);
+        int a = upperBound(added, 0, added.length, after);
+        int r = upperBound(removed, 0, removed.length, after);
+        long[] result = new long[(int) Math.min(limit, (long) (to - i) + added.length - a)];
+        int size = 0;
+        while (size < result.length && (i < to || a < added.length)) {
+            long value;
+            if (a >= added.length || (i < to && base[i] < added[a])) {
+                value = base[i++];
+                while (r < removed.length && removed[r] < value) {
+                    r++;
+                }
+                if (r < removed.length && removed[r] == value) {
+                    continue;
+                }
+            } else {
+                value = added[a++];
+            }
+            result[size++] = value;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // Индекс первого значения больше value в values[from, to)
+    public static int upperBound(long[] values, int from, int to, long value) {
+        int position = Arrays.binarySearch(values, from, to, value);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
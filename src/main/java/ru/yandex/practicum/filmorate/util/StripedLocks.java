@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * Набор блокировок, распределённых по id сущности.
+ * Заменяет блокировку записи внутри ConcurrentHashMap.compute: тот держит монитор, и виртуальный поток,
+ * ушедший под ним в ожидание (запись журнала, fsync), закрепляет за собой поток-носитель.
+ * ReentrantLock такой проблемы не имеет.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Число блокировок должно быть степенью двойки: " + stripes);
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    public ReentrantLock lockFor(long id) {
+        // id идут подряд, перемешивание разводит соседние сущности по разным блокировкам
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (mixed >>> 32) & mask];
+    }
+
+    public <T> T withLock(long id, Supplier<T> action) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BinaryFormatTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private long filmId;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        filmId = filmService.createFilm(new Film(null, "Фильм", "descr", LocalDate.of(2000, 1, 1), 100)).getId();
+        long userId = userService.createUser(
+                new User(null, "a@mail.ru", "login1", "name1", LocalDate.of(1990, 1, 1))).getId();
+        filmService.likeFilm(filmId, userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void jsonIsDefault() throws Exception {
+        mockMvc.perform(get("/films/{id}", filmId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void sameFilmInEveryFormat() throws Exception {
+        JsonNode json = read(new ObjectMapper(), MediaType.APPLICATION_JSON);
+        assertEquals(json, read(new SmileMapper(), SMILE));
+        assertEquals(json, read(new CBORMapper(), MediaType.APPLICATION_CBOR));
+        assertEquals("2000-01-01", json.get("releaseDate").asText());
+    }
+
+    @Test
+    void acceptsBinaryRequestBody() throws Exception {
+        byte[] body = new CBORMapper().writeValueAsBytes(Map.of(
+                "name", "Новый", "description", "d", "releaseDate", "2001-02-03", "duration", 90));
+        byte[] response = mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Новый", new CBORMapper().readTree(response).get("name").asText());
+    }
+
+    @Test
+    void etagDependsOnFormat() throws Exception {
+        String json = etag(MediaType.APPLICATION_JSON);
+        String smile = etag(SMILE);
+        assertNotEquals(json, smile);
+
+        mockMvc.perform(get("/films/{id}", filmId).accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, smile))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/films/{id}", filmId).accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, smile))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode read(ObjectMapper mapper, MediaType format) throws Exception {
+        byte[] body = mockMvc.perform(get("/films/{id}", filmId).accept(format))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(format))
+                .andReturn().getResponse().getContentAsByteArray();
+        return mapper.readTree(body);
+    }
+
+    private String etag(MediaType format) throws Exception {
+        return mockMvc.perform(get("/films/{id}", filmId).accept(format))
+                .andExpect(header().string(HttpHeaders.VARY, containsString("Accept")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private long filmId;
+    private long userId;
+    private long friendId;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        filmId = filmService.createFilm(new Film(null, "film", "descr", LocalDate.of(2000, 1, 1), 100)).getId();
+        userId = userService.createUser(new User(null, "a@mail.ru", "login1", "name1", LocalDate.of(1990, 1, 1)))
+                .getId();
+        friendId = userService.createUser(new User(null, "b@mail.ru", "login2", "name2", LocalDate.of(1990, 1, 1)))
+                .getId();
+        userService.addFriend(userId, friendId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void filmIsNotResentUntilLiked() throws Exception {
+        String etag = etag("/films/" + filmId);
+        assertTrue(etag.startsWith("\""), etag);
+
+        mockMvc.perform(get("/films/{id}", filmId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        filmService.likeFilm(filmId, userId);
+        mockMvc.perform(get("/films/{id}", filmId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, etag("/films/" + filmId));
+    }
+
+    @Test
+    void popularChangesWithLikesAndFilms() throws Exception {
+        String etag = etag("/films/popular");
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        filmService.likeFilm(filmId, userId);
+        String liked = etag("/films/popular");
+        assertNotEquals(etag, liked);
+
+        filmService.updateFilm(new Film(filmId, "renamed", null, null, null));
+        assertNotEquals(liked, etag("/films/popular"));
+    }
+
+    @Test
+    void friendsChangeWhenFriendUpdatesProfile() throws Exception {
+        String etag = etag("/users/" + userId + "/friends");
+        mockMvc.perform(get("/users/{id}/friends", userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        userService.updateUser(new User(friendId, "b@mail.ru", "login2", "renamed", LocalDate.of(1990, 1, 1)));
+        String updated = etag("/users/" + userId + "/friends");
+        assertNotEquals(etag, updated);
+
+        userService.removeFriend(userId, friendId);
+        assertNotEquals(updated, etag("/users/" + userId + "/friends"));
+    }
+
+    @Test
+    void friendsChangeWhenFriendMakesNewFriend() throws Exception {
+        long other = userService.createUser(new User(null, "c@mail.ru", "login3", "name3", LocalDate.of(1990, 1, 1)))
+                .getId();
+        String etag = etag("/users/" + userId + "/friends");
+        String summary = etag("/users/" + userId + "/friends?view=summary");
+
+        userService.addFriend(friendId, other);
+        assertNotEquals(etag, etag("/users/" + userId + "/friends"));
+        assertNotEquals(summary, etag("/users/" + userId + "/friends?view=summary"));
+    }
+
+    @Test
+    void friendPagesHaveDifferentEtags() throws Exception {
+        long other = userService.createUser(new User(null, "c@mail.ru", "login3", "name3", LocalDate.of(1990, 1, 1)))
+                .getId();
+        userService.addFriend(userId, other);
+        String first = etag("/users/" + userId + "/friends?limit=1");
+        String second = etag("/users/" + userId + "/friends?after=" + friendId + "&limit=1");
+        assertNotEquals(first, second);
+        assertNotEquals(first, etag("/users/" + userId + "/friends"));
+
+        mockMvc.perform(get("/users/{id}/friends", userId).param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, first))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void clearInvalidatesEtags() throws Exception {
+        String user = etag("/users/" + userId);
+        userService.clearUsersData();
+        long recreated = userService.createUser(
+                new User(null, "a@mail.ru", "login1", "name1", LocalDate.of(1990, 1, 1))).getId();
+        assertEquals(userId, recreated);
+        mockMvc.perform(get("/users/{id}", recreated).header(HttpHeaders.IF_NONE_MATCH, user))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void missingFilmIsNotFound() throws Exception {
+        mockMvc.perform(get("/films/{id}", 1_000).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
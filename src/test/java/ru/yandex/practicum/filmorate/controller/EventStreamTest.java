@@ -0,0 +1,240 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ChangeFeed;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"filmorate.events.capacity=8", "filmorate.events.max-subscribers=2",
+        "filmorate.events.dispatchers=1"})
+@AutoConfigureMockMvc
+class EventStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private EventStreamer eventStreamer;
+
+    @Autowired
+    private StallingClock clock;
+
+    private long filmId;
+    private long firstUserId;
+    private long secondUserId;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        filmId = filmService.createFilm(new Film(null, "Тихий Дон", "Описание", LocalDate.of(1957, 1, 1), 100))
+                .getId();
+        firstUserId = user(1);
+        secondUserId = user(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventStreamer.closeAll();
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void streamsNewChanges() throws Exception {
+        MvcResult result = subscribe(null);
+        long start = changeFeed.lastId();
+        filmService.likeFilm(filmId, firstUserId);
+        filmService.removeLikeFilm(filmId, firstUserId);
+        userService.addFriend(firstUserId, secondUserId);
+        userService.removeFriend(firstUserId, secondUserId);
+
+        String body = await(result, "id:" + (start + 4));
+        assertThat(body)
+                .contains("id:" + (start + 1) + "\nevent:LIKE_ADDED\ndata:{\"id\":" + (start + 1)
+                        + ",\"type\":\"LIKE_ADDED\",\"userId\":" + firstUserId + ",\"filmId\":" + filmId)
+                .contains("event:LIKE_REMOVED")
+                .contains("event:FRIEND_ADDED\ndata:{\"id\":" + (start + 3) + ",\"type\":\"FRIEND_ADDED\",\"userId\":"
+                        + firstUserId + ",\"friendId\":" + secondUserId)
+                .contains("event:FRIEND_REMOVED")
+                .doesNotContain("event:missed");
+    }
+
+    @Test
+    void catchesUpFromLastEventId() throws Exception {
+        filmService.likeFilm(filmId, firstUserId);
+        long seen = changeFeed.lastId();
+        filmService.likeFilm(filmId, secondUserId);
+
+        String body = await(subscribe(seen), "id:" + (seen + 1));
+        assertThat(body).doesNotContain("id:" + seen + "\n").contains("\"userId\":" + secondUserId);
+    }
+
+    @Test
+    void reportsEventsOverwrittenBeforeReading() throws Exception {
+        long seen = changeFeed.lastId();
+        for (int i = 0; i < 10; i++) {
+            userService.addFriend(firstUserId, secondUserId);
+            userService.removeFriend(firstUserId, secondUserId);
+        }
+
+        // из 20 событий в буфере на 8 осталось последние 8
+        String body = await(subscribe(seen), "id:" + (seen + 20));
+        assertThat(body).startsWith("event:missed\ndata:12\n").contains("id:" + (seen + 13) + "\n");
+    }
+
+    @Test
+    void rejectsSubscribersOverLimit() throws Exception {
+        subscribe(null);
+        subscribe(null);
+
+        mockMvc.perform(get("/events").accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+        assertThat(eventStreamer.subscribers()).isEqualTo(2);
+        eventStreamer.closeAll();
+        assertThat(eventStreamer.subscribers()).isZero();
+        subscribe(null);
+    }
+
+    // Писатель взял номер события, но ещё не положил его в буфер, а рассыльщик как раз проснулся и ничего
+    // не нашёл. Событие всё равно уходит подписчику сразу после записи, а не с пингом через 15 секунд
+    @Test
+    void deliversEventStalledBetweenClaimAndStore() throws Exception {
+        MvcResult result = subscribe(null);
+        long start = changeFeed.lastId();
+        CountDownLatch release = clock.stallNextInstant();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(
+                () -> userService.addFriend(firstUserId, secondUserId));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (changeFeed.lastId() == start && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(changeFeed.lastId()).isEqualTo(start + 1);
+        assertThat(changeFeed.get(start + 1)).isNull();
+
+        // новая подписка будит рассыльщика, он не находит события и засыпает снова
+        subscribe(null);
+        Thread.sleep(50);
+        release.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+
+        assertThat(await(result, "id:" + (start + 1))).contains("event:FRIEND_ADDED");
+    }
+
+    private MvcResult subscribe(Long lastEventId) throws Exception {
+        var builder = get("/events").accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    // Ждёт событие со строкой expected целиком: строки события пишутся по одной, а заканчивается оно пустой строкой
+    private static String await(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!complete(body, expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        assertThat(complete(body, expected)).as(body).isTrue();
+        return body;
+    }
+
+    private static boolean complete(String body, String expected) {
+        int start = body.indexOf(expected);
+        return start >= 0 && body.indexOf("\n\n", start) >= 0;
+    }
+
+    // Часы, которые по требованию останавливают следующий вызов instant(): ChangeFeed зовёт его между выдачей
+    // номера события и записью события в буфер
+    static class StallingClock extends Clock {
+
+        private final Clock delegate = Clock.systemUTC();
+        private final AtomicReference<CountDownLatch> stall = new AtomicReference<>();
+
+        CountDownLatch stallNextInstant() {
+            CountDownLatch release = new CountDownLatch(1);
+            stall.set(release);
+            return release;
+        }
+
+        @Override
+        public Instant instant() {
+            CountDownLatch release = stall.getAndSet(null);
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return delegate.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return delegate.getZone();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return delegate.withZone(zone);
+        }
+    }
+
+    @TestConfiguration
+    static class StallingClockConfiguration {
+
+        @Bean
+        @Primary
+        StallingClock stallingClock() {
+            return new StallingClock();
+        }
+    }
+
+    private long user(int number) {
+        return userService.createUser(new User(null, "u" + number + "@mail.ru", "login" + number, "name" + number,
+                LocalDate.of(1990, 1, 1))).getId();
+    }
+}
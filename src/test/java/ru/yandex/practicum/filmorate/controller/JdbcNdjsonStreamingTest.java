@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Те же проверки на хранилищах в базе данных
+@TestPropertySource(properties = "filmorate.storage=jdbc")
+class JdbcNdjsonStreamingTest extends NdjsonStreamingTest {
+}
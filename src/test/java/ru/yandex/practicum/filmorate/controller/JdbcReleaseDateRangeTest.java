@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Те же проверки на хранилищах в базе данных: там диапазон читается по индексу films_release_date_idx
+@TestPropertySource(properties = "filmorate.storage=jdbc")
+class JdbcReleaseDateRangeTest extends ReleaseDateRangeTest {
+}
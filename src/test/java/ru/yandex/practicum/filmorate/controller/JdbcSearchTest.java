@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Те же проверки на хранилищах в базе данных: там поиск идёт запросом по подстрокам
+@TestPropertySource(properties = "filmorate.storage=jdbc")
+class JdbcSearchTest extends SearchTest {
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReleaseDateRangeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private long nineties;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        film("2005", LocalDate.of(2005, 6, 1));
+        nineties = film("1995", LocalDate.of(1995, 3, 1)).getId();
+        long popular = film("2001", LocalDate.of(2001, 1, 1)).getId();
+        film("2001 тоже", LocalDate.of(2001, 1, 1));
+        film("без даты", null);
+        long userId = userService.createUser(new User(null, "u@mail.ru", "login", "name",
+                LocalDate.of(1990, 1, 1))).getId();
+        filmService.likeFilm(popular, userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void filtersAndOrdersByReleaseDate() throws Exception {
+        mockMvc.perform(get("/films").param("releasedFrom", "2001-01-01").param("releasedTo", "2005-06-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("2001", "2001 тоже", "2005")));
+        mockMvc.perform(get("/films").param("releasedTo", "2001-01-01").param("limit", "2"))
+                .andExpect(jsonPath("$[*].name", contains("1995", "2001")));
+        mockMvc.perform(get("/films").param("releasedFrom", "2002-01-01").param("view", "summary"))
+                .andExpect(jsonPath("$[*].name", contains("2005")));
+    }
+
+    @Test
+    void ordersRangeByPopularity() throws Exception {
+        mockMvc.perform(get("/films").param("releasedFrom", "1990-01-01").param("sort", "popular"))
+                .andExpect(jsonPath("$[*].name", contains("2001", "2005", "1995", "2001 тоже")));
+        mockMvc.perform(get("/films").param("releasedTo", "2001-12-31").param("sort", "popular")
+                        .param("limit", "2"))
+                .andExpect(jsonPath("$[*].name", contains("2001", "1995")));
+    }
+
+    @Test
+    void updatedReleaseDateMovesFilm() throws Exception {
+        filmService.updateFilm(new Film(nineties, null, null, LocalDate.of(2010, 1, 1), null));
+
+        mockMvc.perform(get("/films").param("releasedTo", "2000-01-01"))
+                .andExpect(jsonPath("$", empty()));
+        mockMvc.perform(get("/films").param("releasedFrom", "2006-01-01"))
+                .andExpect(jsonPath("$[*].name", contains("1995")));
+    }
+
+    @Test
+    void rejectsInvalidParameters() throws Exception {
+        mockMvc.perform(get("/films").param("releasedFrom", "2005-01-01").param("releasedTo", "2001-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films").param("sort", "name"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films").param("sort", "popular").param("after", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Film film(String name, LocalDate releaseDate) {
+        return filmService.createFilm(new Film(null, name, "descr", releaseDate, 100));
+    }
+}
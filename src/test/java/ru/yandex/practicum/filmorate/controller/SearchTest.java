@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private long warAndPeaceId;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        warAndPeaceId = film("Война и мир", "Экранизация романа Толстого").getId();
+        film("Тихий Дон", "Казаки, революция и мир после неё");
+        film("Ёлки", "Новогодняя комедия");
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void findsCyrillicWordsIgnoringCaseAndYo() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", "ЕЛКИ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Ёлки")));
+        mockMvc.perform(get("/films/search").param("q", "новогодняя ёлки"))
+                .andExpect(jsonPath("$[*].name", contains("Ёлки")));
+        mockMvc.perform(get("/films/search").param("q", "новогодняя война"))
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    void ranksNameAboveDescription() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", "мир"))
+                .andExpect(jsonPath("$[*].name", contains("Война и мир", "Тихий Дон")));
+        mockMvc.perform(get("/films/search").param("q", "мир").param("limit", "1").param("view", "summary"))
+                .andExpect(jsonPath("$[*].name", contains("Война и мир")))
+                .andExpect(jsonPath("$[0].likesCount").value(0));
+    }
+
+    @Test
+    void likesBoostRaisesPopularFilms() throws Exception {
+        long liked = film("Мир Юрского периода", "Динозавры").getId();
+        for (int i = 0; i < 20; i++) {
+            long userId = userService.createUser(new User(null, "u" + i + "@mail.ru", "login" + i, "name" + i,
+                    LocalDate.of(1990, 1, 1))).getId();
+            filmService.likeFilm(liked, userId);
+        }
+
+        mockMvc.perform(get("/films/search").param("q", "мир"))
+                .andExpect(jsonPath("$[*].name", contains("Война и мир", "Мир Юрского периода", "Тихий Дон")));
+        mockMvc.perform(get("/films/search").param("q", "мир").param("boostLikes", "true"))
+                .andExpect(jsonPath("$[*].name", contains("Мир Юрского периода", "Война и мир", "Тихий Дон")));
+    }
+
+    @Test
+    void updatedTextReplacesOldWords() throws Exception {
+        Film update = new Film(warAndPeaceId, "Анна Каренина", null, null, null);
+        filmService.updateFilm(update);
+
+        mockMvc.perform(get("/films/search").param("q", "война"))
+                .andExpect(jsonPath("$", empty()));
+        mockMvc.perform(get("/films/search").param("q", "каренина толстого"))
+                .andExpect(jsonPath("$[*].id", contains((int) warAndPeaceId)));
+    }
+
+    @Test
+    void rejectsEmptyQuery() throws Exception {
+        mockMvc.perform(get("/films/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Film film(String name, String description) {
+        return filmService.createFilm(new Film(null, name, description, LocalDate.of(2000, 1, 1), 100));
+    }
+}
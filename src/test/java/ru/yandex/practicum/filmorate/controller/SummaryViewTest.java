@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SummaryViewTest {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private final long[] userIds = new long[USERS];
+    private long popularId;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = userService.createUser(new User(null, "u" + i + "@mail.ru", "login" + i, "name" + i,
+                    LocalDate.of(1990, 1, 1))).getId();
+        }
+        // первый дружит со всеми, остальные только с первым
+        for (int i = 1; i < USERS; i++) {
+            userService.addFriend(userIds[0], userIds[i]);
+        }
+        filmService.createFilm(new Film(null, "quiet", "descr", LocalDate.of(2000, 1, 1), 100));
+        popularId = filmService.createFilm(new Film(null, "popular", "descr", LocalDate.of(2000, 1, 1), 100)).getId();
+        for (long userId : userIds) {
+            filmService.likeFilm(popularId, userId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void popularFilmsCarryLikeCounts() throws Exception {
+        mockMvc.perform(get("/films/popular").param("view", "summary").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("popular", "quiet")))
+                .andExpect(jsonPath("$[*].likesCount", contains(USERS, 0)))
+                .andExpect(jsonPath("$[0].usersLikes").doesNotExist())
+                .andExpect(jsonPath("$[0].releaseDate").value("2000-01-01"));
+    }
+
+    @Test
+    void friendsCarryFriendCounts() throws Exception {
+        mockMvc.perform(get("/users/{id}/friends", userIds[0]).param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(USERS - 1)))
+                .andExpect(jsonPath("$[0].login").value("login1"))
+                .andExpect(jsonPath("$[*].friendsCount", contains(1, 1, 1, 1)))
+                .andExpect(jsonPath("$[0].friends").doesNotExist());
+
+        mockMvc.perform(get("/users/{id}/friends", userIds[1]).param("view", "summary").param("limit", "10"))
+                .andExpect(jsonPath("$[*].friendsCount", contains(USERS - 1)));
+    }
+
+    @Test
+    void singleEntitiesAndLists() throws Exception {
+        mockMvc.perform(get("/films/{id}", popularId).param("view", "summary"))
+                .andExpect(jsonPath("$.likesCount").value(USERS));
+        mockMvc.perform(get("/users/{id}", userIds[0]).param("view", "summary"))
+                .andExpect(jsonPath("$.friendsCount").value(USERS - 1));
+        mockMvc.perform(get("/films").param("view", "summary"))
+                .andExpect(jsonPath("$[*].likesCount", contains(0, USERS)));
+        mockMvc.perform(get("/users").param("view", "summary").param("limit", "2"))
+                .andExpect(jsonPath("$[*].friendsCount", contains(USERS - 1, 1)));
+        mockMvc.perform(get("/films/{id}", 1_000).param("view", "summary"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void summaryHasItsOwnEtag() throws Exception {
+        String full = mockMvc.perform(get("/films/{id}", popularId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String summary = mockMvc.perform(get("/films/{id}", popularId).param("view", "summary"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(full, summary);
+        mockMvc.perform(get("/films/{id}", popularId).param("view", "summary")
+                        .header(HttpHeaders.IF_NONE_MATCH, summary))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.trending.refresh=0s")
+@AutoConfigureMockMvc
+class TrendingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @AfterEach
+    void tearDown() {
+        filmService.clearFilmsData();
+        userService.clearUsersData();
+    }
+
+    @Test
+    void ranksFilmsByRecentLikes() throws Exception {
+        long quiet = film("Тихий Дон").getId();
+        long loud = film("Ёлки").getId();
+        film("Без лайков");
+        long first = user(1);
+        long second = user(2);
+        filmService.likeFilm(quiet, first);
+        filmService.likeFilm(loud, first);
+        filmService.likeFilm(loud, second);
+
+        for (String window : new String[]{"hour", "day", "week", "decayed"}) {
+            mockMvc.perform(get("/films/trending").param("window", window))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", contains((int) loud, (int) quiet)));
+        }
+        filmService.removeLikeFilm(loud, first);
+        filmService.removeLikeFilm(loud, second);
+        mockMvc.perform(get("/films/trending").param("view", "summary"))
+                .andExpect(jsonPath("$[*].name", contains("Тихий Дон")))
+                .andExpect(jsonPath("$[0].likesCount").value(1));
+    }
+
+    @Test
+    void rejectsUnknownWindowAndCount() throws Exception {
+        mockMvc.perform(get("/films/trending").param("window", "month"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/trending").param("count", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Film film(String name) {
+        return filmService.createFilm(new Film(null, name, "Описание", LocalDate.of(2000, 1, 1), 100));
+    }
+
+    private long user(int number) {
+        return userService.createUser(new User(null, "u" + number + "@mail.ru", "login" + number, "name" + number,
+                LocalDate.of(1990, 1, 1))).getId();
+    }
+}
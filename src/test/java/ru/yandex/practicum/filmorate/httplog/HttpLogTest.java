@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.httplog;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.BodyFilter;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Sink;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HttpLogTest {
+
+    @Test
+    void errorsAndSlowRequestsAreAlwaysLogged() {
+        SamplingStrategy strategy = new SamplingStrategy(0, Duration.ofMillis(500));
+
+        assertTrue(strategy.shouldLog(false, 404, Duration.ofMillis(1)));
+        assertTrue(strategy.shouldLog(false, 500, Duration.ofMillis(1)));
+        assertTrue(strategy.shouldLog(false, 200, Duration.ofMillis(500)));
+        assertTrue(strategy.shouldLog(true, 200, Duration.ofMillis(1)));
+        assertFalse(strategy.shouldLog(false, 200, Duration.ofMillis(499)));
+    }
+
+    @Test
+    void onlySampledResponsesAreBufferedAndLogged() throws Exception {
+        SamplingStrategy strategy = new SamplingStrategy(0.1, Duration.ofSeconds(1));
+        Correlation correlation = mock(Correlation.class);
+        when(correlation.getDuration()).thenReturn(Duration.ZERO);
+        Sink sink = mock(Sink.class);
+        int buffered = 0;
+        for (int i = 0; i < 10_000; i++) {
+            HttpRequest request = mock(HttpRequest.class);
+            HttpResponse response = mock(HttpResponse.class);
+            when(response.getStatus()).thenReturn(200);
+            strategy.process(request, response);
+            if (mockingDetails(response).getInvocations().stream()
+                    .anyMatch(invocation -> invocation.getMethod().getName().equals("withBody"))) {
+                buffered++;
+            }
+            strategy.write(correlation, request, response, sink);
+        }
+        assertTrue(buffered > 800 && buffered < 1_200, "буферизовано " + buffered);
+        verify(sink, times(buffered)).writeBoth(any(), any(), any());
+    }
+
+    @Test
+    void errorResponsesKeepBodyOutsideSample() throws Exception {
+        SamplingStrategy strategy = new SamplingStrategy(0, Duration.ofSeconds(1));
+        HttpResponse error = mock(HttpResponse.class);
+        when(error.getStatus()).thenReturn(404);
+        HttpResponse ok = mock(HttpResponse.class);
+        when(ok.getStatus()).thenReturn(200);
+
+        strategy.process(mock(HttpRequest.class), error);
+        strategy.process(mock(HttpRequest.class), ok);
+
+        verify(error).withBody();
+        verify(ok).withoutBody();
+    }
+
+    @Test
+    void sampledModeTruncatesBodies() {
+        BodyFilter filter = new HttpLogConfiguration().truncatingBodyFilter(4);
+        assertEquals("1234...", filter.filter("text/plain", "123456789"));
+    }
+
+    @Test
+    void fullQueueDropsInsteadOfBlocking() throws Exception {
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(1);
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                writer.write(null, "message " + i);
+            }
+        } finally {
+            writer.close();
+        }
+        assertTrue(writer.dropped() > 0);
+    }
+}
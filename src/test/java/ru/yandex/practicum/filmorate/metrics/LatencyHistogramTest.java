@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverValuesWithoutGaps() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index), "значение " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.bucketUpperBound(index - 1), "значение " + value);
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE,
+                LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    void quantilesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // логнормальное распределение задержек с медианой около 200 мкс
+            values[i] = (long) Math.exp(12.2 + random.nextDouble() * 2 - 1 + random.nextDouble() * 2 - 1);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.count());
+        for (double quantile : new double[]{0.5, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimate = snapshot.valueAtQuantile(quantile);
+            assertTrue(estimate >= exact && estimate <= exact * 1.04,
+                    "квантиль " + quantile + ": " + estimate + " вместо " + exact);
+        }
+    }
+}
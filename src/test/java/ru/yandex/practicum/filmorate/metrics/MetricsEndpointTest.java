@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void endpointsAndServicesAreExposedInPrometheusFormat() throws Exception {
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", 100_000)).andExpect(status().isNotFound());
+
+        String metrics = mockMvc.perform(get("/internal/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(metrics.contains("# TYPE filmorate_http_requests_seconds summary"), metrics);
+        assertTrue(metrics.contains("filmorate_http_requests_seconds{method=\"GET\",uri=\"/films\",quantile=\"0.999\"}"),
+                metrics);
+        assertTrue(metrics.contains("filmorate_http_requests_total{method=\"GET\",uri=\"/films/{filmId}\","
+                + "outcome=\"client_error\"} 1"), metrics);
+        assertTrue(metrics.contains("filmorate_service_calls_total{method=\"FilmService.getFilmById\","
+                + "outcome=\"client_error\"} 1"), metrics);
+    }
+}
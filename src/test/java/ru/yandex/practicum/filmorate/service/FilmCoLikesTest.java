@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmRecommendation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.CompactLongSet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmCoLikesTest {
+
+    private static final int USERS = 300;
+    private static final int FILMS = 60;
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+
+    @Test
+    void recommendationsFollowLikesAndUnlikes() {
+        // соседей хватает на все фильмы, поэтому счётчики точные
+        FilmCoLikes coLikes = new FilmCoLikes(filmStorage, FILMS);
+        FilmService filmService = filmService(coLikes);
+        coLikes.build();
+        Random random = new Random(7);
+        for (int i = 0; i < 8_000; i++) {
+            long filmId = 1 + random.nextInt(FILMS);
+            long userId = 1 + random.nextInt(USERS);
+            boolean liked = filmStorage.getFilm(filmId).orElseThrow().getUsersLikes().contains(userId);
+            if (!liked) {
+                filmService.likeFilm(filmId, userId);
+            } else if (random.nextInt(3) == 0) {
+                filmService.removeLikeFilm(filmId, userId);
+            }
+        }
+
+        for (long userId = 1; userId <= USERS; userId += 37) {
+            List<long[]> expected = bruteForce(userId);
+            List<FilmRecommendation> actual = filmService.getRecommendedFilms(userId, 15);
+            assertEquals(Math.min(15, expected.size()), actual.size());
+            for (int i = 0; i < actual.size(); i++) {
+                assertEquals(expected.get(i)[0], actual.get(i).film().id());
+                assertEquals(expected.get(i)[1], actual.get(i).coLikes());
+            }
+        }
+    }
+
+    @Test
+    void buildsFromStorage() {
+        FilmCoLikes coLikes = new FilmCoLikes(filmStorage, FILMS);
+        FilmService filmService = filmService(coLikes);
+        // лайки записаны мимо сервиса, как после восстановления из журнала
+        for (long userId = 1; userId <= 10; userId++) {
+            filmStorage.addLike(1L, userId);
+            filmStorage.addLike(2L, userId);
+        }
+        filmStorage.addLike(3L, 1L);
+        assertEquals(0, filmService.getRecommendedFilms(5L, null).size());
+
+        coLikes.build();
+        assertEquals(10, coLikes.coLikes(1, 2));
+        assertEquals(1, coLikes.coLikes(3, 2));
+        filmService.likeFilm(3L, 2L);
+        assertEquals(2, coLikes.coLikes(2, 3));
+        assertEquals(3L, filmService.getRecommendedFilms(5L, null).get(0).film().id());
+
+        filmService.clearFilmsData();
+        assertEquals(0, coLikes.coLikes(1, 2));
+    }
+
+    @Test
+    void keepsOnlyFrequentNeighbors() {
+        FilmCoLikes coLikes = new FilmCoLikes(filmStorage, 2);
+        FilmService filmService = filmService(coLikes);
+        coLikes.build();
+        // фильм 1 лайкнут вместе с 2 всеми, а с остальными — по одному разу
+        for (long userId = 1; userId <= 40; userId++) {
+            filmService.likeFilm(1L, userId);
+            filmService.likeFilm(2L, userId);
+            filmService.likeFilm(3 + userId % 20, userId);
+        }
+
+        assertEquals(40, coLikes.coLikes(1, 2));
+        int others = 0;
+        for (long filmId = 3; filmId < 23; filmId++) {
+            others += coLikes.coLikes(1, filmId) > 0 ? 1 : 0;
+        }
+        assertEquals(1, others);
+        assertEquals(0, coLikes.recommend(41, 5).size());
+    }
+
+    @Test
+    void reconcilesLikesChangedDuringBuild() {
+        List<FilmCoLikes> holder = new ArrayList<>();
+        InMemoryFilmStorage storage = new InMemoryFilmStorage() {
+            // снимок, прочитанный построением, устаревает: лайк снят, пока построение до него не дошло
+            @Override
+            public Collection<Film> getFilms() {
+                List<Film> snapshot = new ArrayList<>();
+                for (Film film : super.getFilms()) {
+                    Film copy = new Film(film.getId(), film.getName(), film.getDescription(),
+                            film.getReleaseDate(), film.getDuration());
+                    copy.setUsersLikes(new CompactLongSet(film.getUsersLikes().toLongArray()));
+                    snapshot.add(copy);
+                }
+                removeLike(2L, 1L);
+                holder.get(0).likeChanged(2, 1, false);
+                return snapshot;
+            }
+        };
+        FilmCoLikes coLikes = new FilmCoLikes(storage, FILMS);
+        holder.add(coLikes);
+        for (long filmId = 1; filmId <= 2; filmId++) {
+            storage.addFilm(new Film(null, "Фильм " + filmId, "Описание", LocalDate.of(2000, 1, 1), 100));
+            storage.addLike(filmId, 1L);
+        }
+
+        coLikes.build();
+        assertEquals(0, coLikes.coLikes(1, 2));
+        assertEquals(0, coLikes.recommend(1, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void unlikeRemovesExactlyThePairsOfItsLike() {
+        int films = FilmCoLikes.MAX_PAIRED_LIKES + 10;
+        FilmCoLikes coLikes = new FilmCoLikes(filmStorage, films);
+        FilmService filmService = filmService(coLikes);
+        for (int i = FILMS; i < films; i++) {
+            filmService.createFilm(new Film(null, "Фильм " + i, "Описание", LocalDate.of(2000, 1, 1), 100));
+        }
+        coLikes.build();
+        for (long filmId = 1; filmId <= films; filmId++) {
+            filmService.likeFilm(filmId, 1L);
+        }
+        // учтены только последние MAX_PAIRED_LIKES лайков: первые вытеснены вместе со своими парами
+        assertEquals(0, coLikes.coLikes(1, films));
+        assertEquals(0, coLikes.coLikes(1, 2));
+        assertEquals(0, coLikes.coLikes(films, films - FilmCoLikes.MAX_PAIRED_LIKES));
+        assertEquals(1, coLikes.coLikes(films, films - FilmCoLikes.MAX_PAIRED_LIKES + 1));
+        filmService.removeLikeFilm(5L, 1L);
+        filmService.removeLikeFilm(1000L, 1L);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            if (filmId != 5 && filmId != 1000) {
+                filmService.removeLikeFilm(filmId, 1L);
+            }
+        }
+
+        // при асимметричном снятии остались бы пары с ненулевыми счётчиками
+        long left = 0;
+        for (long filmId = 1; filmId <= films; filmId++) {
+            for (long other = 1; other <= films; other++) {
+                left += coLikes.coLikes(filmId, other);
+            }
+        }
+        assertEquals(0, left);
+    }
+
+    private FilmService filmService(FilmCoLikes coLikes) {
+        ChangeFeed changes = new ChangeFeed(Clock.systemUTC(), 1024);
+        UserService userService = new UserService(userStorage, new EntityVersions(), coLikes, changes);
+        FilmService filmService = new FilmService(filmStorage, userService, new EntityVersions(), coLikes,
+                new FilmTrends(Clock.systemUTC(), Duration.ofDays(1), Duration.ZERO), changes,
+                new LikeWriter(filmStorage, LikeWriter.SYNC, 1));
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(new User(null, "u" + i + "@mail.ru", "login" + i, null, LocalDate.of(1990, 1, 1)));
+        }
+        for (int i = 0; i < FILMS; i++) {
+            filmService.createFilm(new Film(null, "Фильм " + i, "Описание", LocalDate.of(2000, 1, 1), 100));
+        }
+        return filmService;
+    }
+
+    private List<long[]> bruteForce(long userId) {
+        Map<Long, Long> scores = new HashMap<>();
+        for (Film liked : filmStorage.getFilms()) {
+            if (!liked.getUsersLikes().contains(userId)) {
+                continue;
+            }
+            for (Film other : filmStorage.getFilms()) {
+                if (other.getUsersLikes().contains(userId)) {
+                    continue;
+                }
+                long common = liked.getUsersLikes().stream().filter(other.getUsersLikes()::contains).count();
+                if (common > 0) {
+                    scores.merge(other.getId(), common, Long::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .map(entry -> new long[]{entry.getKey(), entry.getValue()})
+                .sorted(Comparator.<long[]>comparingLong(pair -> -pair[1]).thenComparingLong(pair -> pair[0]))
+                .toList();
+    }
+}
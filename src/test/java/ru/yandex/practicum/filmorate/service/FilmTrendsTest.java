@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.LongIntTopK;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FilmTrendsTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final FilmTrends trends = new FilmTrends(clock, Duration.ofDays(1), Duration.ZERO);
+
+    @Test
+    void windowsSlideWithTime() {
+        like(1, 3);
+        like(2, 1);
+        assertTop(FilmTrends.Window.HOUR, new long[]{1, 2}, new int[]{3, 1});
+
+        clock.advance(Duration.ofMinutes(30));
+        like(2, 3);
+        assertTop(FilmTrends.Window.HOUR, new long[]{2, 1}, new int[]{4, 3});
+
+        clock.advance(Duration.ofMinutes(45));
+        assertTop(FilmTrends.Window.HOUR, new long[]{2}, new int[]{3});
+        assertTop(FilmTrends.Window.DAY, new long[]{2, 1}, new int[]{4, 3});
+
+        clock.advance(Duration.ofDays(2));
+        assertTop(FilmTrends.Window.DAY, new long[0], new int[0]);
+        assertTop(FilmTrends.Window.WEEK, new long[]{2, 1}, new int[]{4, 3});
+
+        // после долгого перерыва кольца обнуляются целиком, а фильмы забываются
+        clock.advance(Duration.ofDays(365));
+        assertTop(FilmTrends.Window.WEEK, new long[0], new int[0]);
+        like(1, 1);
+        assertTop(FilmTrends.Window.WEEK, new long[]{1}, new int[]{1});
+    }
+
+    @Test
+    void unlikesSubtractFromWindows() {
+        like(1, 2);
+        like(2, 1);
+        trends.unliked(1);
+        trends.unliked(1);
+
+        assertTop(FilmTrends.Window.DAY, new long[]{2}, new int[]{1});
+    }
+
+    @Test
+    void decayedScoreHalvesEveryHalfLife() {
+        like(1, 4);
+        clock.advance(Duration.ofDays(2));
+        like(2, 2);
+
+        LongIntTopK top = trends.topDecayed(10);
+        int[] scores = new int[top.size()];
+        assertArrayEquals(new long[]{2, 1}, top.drain(scores));
+        assertArrayEquals(new int[]{2000, 1000}, scores);
+    }
+
+    @Test
+    void reusesRankingUntilRefresh() {
+        FilmTrends cached = new FilmTrends(clock, Duration.ofDays(1), Duration.ofMinutes(1));
+        cached.liked(1);
+        assertTop(cached, 10, new long[]{1});
+
+        cached.liked(2);
+        cached.liked(2);
+        assertTop(cached, 10, new long[]{1});
+        // рейтинг короче запрошенного строится заново
+        assertTop(cached, 20, new long[]{2, 1});
+        cached.unliked(2);
+        cached.unliked(2);
+        clock.advance(Duration.ofMinutes(1));
+        assertTop(cached, 10, new long[]{1});
+
+        cached.clear();
+        assertTop(cached, 10, new long[0]);
+    }
+
+    private void like(long filmId, int times) {
+        for (int i = 0; i < times; i++) {
+            trends.liked(filmId);
+        }
+    }
+
+    private void assertTop(FilmTrends.Window window, long[] films, int[] likes) {
+        LongIntTopK top = trends.top(window, 10);
+        int[] values = new int[top.size()];
+        assertArrayEquals(films, top.drain(values));
+        assertArrayEquals(likes, values);
+    }
+
+    private static void assertTop(FilmTrends trends, int count, long[] films) {
+        LongIntTopK top = trends.top(FilmTrends.Window.DAY, count);
+        assertArrayEquals(films, top.drain(new int[top.size()]));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeWriterTest {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 2_000;
+
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+    private final LikeWriter writer = new LikeWriter(storage, LikeWriter.BATCHED, 2);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.destroy();
+    }
+
+    @Test
+    void reportsDuplicatesLikeSynchronousWrites() {
+        long filmId = film();
+
+        assertTrue(writer.addLike(filmId, 1));
+        assertFalse(writer.addLike(filmId, 1));
+        assertTrue(writer.removeLike(filmId, 1));
+        assertFalse(writer.removeLike(filmId, 1));
+        assertFalse(writer.addLike(filmId + 1, 1), "лайк несуществующему фильму не ставится");
+    }
+
+    @Test
+    void eachConcurrentLikeIsAcceptedOnce() throws Exception {
+        long hot = film();
+        long other = film();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // каждый пользователь ставит лайк горячему фильму из двух потоков
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread % 2;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long userId = 1 + offset; userId <= USERS; userId += 2) {
+                        if (writer.addLike(hot, userId)) {
+                            accepted.incrementAndGet();
+                        }
+                        writer.addLike(other, userId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(USERS, accepted.get());
+        assertEquals(USERS, storage.getFilm(hot).orElseThrow().getUsersLikes().size());
+        assertEquals(USERS, storage.getFilm(other).orElseThrow().getUsersLikes().size());
+        assertEquals(List.of(hot, other), storage.getPopularFilms(2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void rejectsUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> new LikeWriter(storage, "async", 2));
+    }
+
+    @Test
+    void errorInStorageFailsTheBatchAndKeepsWriterAlive() throws InterruptedException {
+        long filmId = film();
+        AtomicBoolean fail = new AtomicBoolean(true);
+        LikeWriter failing = new LikeWriter(new InMemoryFilmStorage() {
+            @Override
+            public boolean[] changeLikes(Long id, long[] userIds, boolean[] add) {
+                if (fail.getAndSet(false)) {
+                    throw new StackOverflowError("проверка");
+                }
+                return storage.changeLikes(id, userIds, add);
+            }
+        }, LikeWriter.BATCHED, 1);
+        try {
+            assertThrows(StackOverflowError.class, () -> failing.addLike(filmId, 1));
+            assertTrue(failing.addLike(filmId, 1));
+        } finally {
+            failing.destroy();
+        }
+        assertTrue(storage.hasLike(filmId, 1L));
+    }
+
+    @Test
+    void destroyFailsChangesOfStuckWriter() throws Exception {
+        long filmId = film();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LikeWriter stuck = new LikeWriter(new InMemoryFilmStorage() {
+            @Override
+            public boolean[] changeLikes(Long id, long[] userIds, boolean[] add) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return storage.changeLikes(id, userIds, add);
+            }
+        }, LikeWriter.BATCHED, 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> like = executor.submit(() -> stuck.addLike(filmId, 1));
+            entered.await();
+            stuck.destroy();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> like.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(ServiceUnavailableException.class, e.getCause());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void acceptsChangesAfterDestroy() throws InterruptedException {
+        long filmId = film();
+        writer.destroy();
+
+        assertTrue(writer.addLike(filmId, 1));
+        assertTrue(writer.removeLike(filmId, 1));
+    }
+
+    private long film() {
+        return storage.addFilm(new Film(null, "Фильм", "Описание", LocalDate.of(2000, 1, 1), 100)).getId();
+    }
+}
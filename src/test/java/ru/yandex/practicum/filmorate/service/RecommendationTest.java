@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecommendationTest {
+
+    private static final int USERS = 2_000;
+
+    @Test
+    void ranksFriendsOfFriendsByMutualFriends() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        UserService userService = new UserService(storage, new EntityVersions(),
+                new FilmCoLikes(new InMemoryFilmStorage(), 64), new ChangeFeed(Clock.systemUTC(), 1024));
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(new User(null, "u" + i + "@mail.ru", "login" + i, null, LocalDate.of(1990, 1, 1)));
+        }
+        // предпочтительное присоединение: у первых пользователей сотни друзей, задача делится на части
+        Random random = new Random(1);
+        List<Long> endpoints = new ArrayList<>(List.of(1L, 2L));
+        userService.addFriend(1L, 2L);
+        for (long id = 3; id <= USERS; id++) {
+            for (int edge = 0; edge < 3; edge++) {
+                long friendId = endpoints.get(random.nextInt(endpoints.size()));
+                if (storage.addFriend(id, friendId)) {
+                    endpoints.add(id);
+                    endpoints.add(friendId);
+                }
+            }
+        }
+
+        // в пуле из 4 потоков кандидаты делятся на 4 части
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long userId : new long[]{1, 2, 100, USERS}) {
+                List<long[]> expected = bruteForce(storage, userId);
+                check(expected, userService.getRecommendations(userId, 20));
+                check(expected, pool.submit(() -> userService.getRecommendations(userId, 20)).join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // лимит больше числа кандидатов не раздувает отбор
+        assertEquals(bruteForce(storage, 1).size(), userService.getRecommendations(1L, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void estimatesDistinctCandidatesFromSample() {
+        // 200 друзей с одними и теми же 100 друзьями: путей 20 000, кандидатов 100
+        long[][] dense = new long[200][];
+        long[][] sparse = new long[200][];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = new long[100];
+            sparse[i] = new long[100];
+            for (int j = 0; j < 100; j++) {
+                dense[i][j] = j + 1;
+                sparse[i][j] = i * 100L + j + 1;
+            }
+        }
+        long denseEstimate = MutualFriendsRanking.estimateCandidates(dense, 20_000);
+        assertTrue(denseEstimate < 20_000 / 10, "оценка " + denseEstimate);
+        assertEquals(20_000, MutualFriendsRanking.estimateCandidates(sparse, 20_000));
+        assertEquals(50, MutualFriendsRanking.estimateCandidates(new long[][]{new long[50]}, 50));
+    }
+
+    private static void check(List<long[]> expected, List<FriendRecommendation> actual) {
+        assertEquals(Math.min(20, expected.size()), actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(expected.get(i)[0], actual.get(i).user().id());
+            assertEquals(expected.get(i)[1], actual.get(i).mutualFriends());
+        }
+    }
+
+    private static List<long[]> bruteForce(InMemoryUserStorage storage, long userId) {
+        Set<Long> friends = new HashSet<>();
+        for (long friendId : storage.getFriendIds(userId)) {
+            friends.add(friendId);
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        for (long friendId : friends) {
+            for (long candidate : storage.getFriendIds(friendId)) {
+                if (candidate != userId && !friends.contains(candidate)) {
+                    counts.merge(candidate, 1L, Long::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new long[]{entry.getKey(), entry.getValue()})
+                .sorted(Comparator.<long[]>comparingLong(pair -> -pair[1]).thenComparingLong(pair -> pair[0]))
+                .toList();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Без транзакции теста каждый вызов берёт соединение из пула сам: незакрытое соединение
+// исчерпало бы пул из двух соединений за несколько вызовов
+@JdbcTest(properties = {
+        "filmorate.storage=jdbc",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcConnectionPoolTest {
+
+    private static final int CALLS = 20;
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage.clearData();
+        userStorage.clearData();
+    }
+
+    @Test
+    void friendReadsReturnConnectionsToPool() {
+        long user = addUser("user").getId();
+        long friend = addUser("friend").getId();
+        assertTrue(userStorage.addFriend(user, friend));
+
+        for (int i = 0; i < CALLS; i++) {
+            assertArrayEquals(new long[]{friend}, userStorage.getFriendIds(user));
+            assertArrayEquals(new long[]{friend}, userStorage.getFriendIds(user, 0, 10));
+        }
+    }
+
+    @Test
+    void repeatedLikeRollsBackAndReturnsConnection() {
+        long user = addUser("user").getId();
+        Film film = filmStorage.addFilm(new Film(null, "film", "descr", LocalDate.of(2000, 1, 1), 100));
+        assertTrue(filmStorage.addLike(film.getId(), user));
+
+        for (int i = 0; i < CALLS; i++) {
+            assertFalse(filmStorage.addLike(film.getId(), user), "повторный лайк не должен учитываться");
+        }
+        assertTrue(filmStorage.getFilm(film.getId()).orElseThrow().getUsersLikes().contains(user));
+    }
+
+    // Встречные запросы на одну дружбу пишут строки в одном порядке и не ждут друг друга до тайм-аута блокировки
+    @Test
+    void oppositeFriendRequestsDoNotDeadlock() throws Exception {
+        long first = addUser("first").getId();
+        long second = addUser("second").getId();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        for (int i = 0; i < CALLS; i++) {
+            CompletableFuture<Boolean> forward = CompletableFuture.supplyAsync(() -> {
+                await(barrier);
+                return userStorage.addFriend(first, second);
+            });
+            CompletableFuture<Boolean> backward = CompletableFuture.supplyAsync(() -> {
+                await(barrier);
+                return userStorage.addFriend(second, first);
+            });
+            assertEquals(1, (forward.get() ? 1 : 0) + (backward.get() ? 1 : 0), "дружба добавляется ровно один раз");
+            assertArrayEquals(new long[]{second}, userStorage.getFriendIds(first));
+            assertTrue(userStorage.removeFriend(second, first));
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private User addUser(String login) {
+        return userStorage.addUser(new User(null, login + "@mail.ru", login, login, LocalDate.of(1990, 1, 1)));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest(properties = "filmorate.storage=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcStorageTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage.clearData();
+        userStorage.clearData();
+    }
+
+    @Test
+    void popularFilmsFollowLikeCounter() {
+        List<Long> users = List.of(addUser("a").getId(), addUser("b").getId(), addUser("c").getId());
+        Film first = filmStorage.addFilm(newFilm("first"));
+        Film second = filmStorage.addFilm(newFilm("second"));
+        Film third = filmStorage.addFilm(newFilm("third"));
+
+        for (Long userId : users) {
+            assertTrue(filmStorage.addLike(second.getId(), userId));
+        }
+        assertTrue(filmStorage.addLike(third.getId(), users.get(0)));
+        assertFalse(filmStorage.addLike(third.getId(), users.get(0)), "повторный лайк не должен учитываться");
+
+        assertEquals(List.of(second.getId(), third.getId(), first.getId()), ids(filmStorage.getPopularFilms(10)));
+        assertEquals(Set.copyOf(users), filmStorage.getFilm(second.getId()).orElseThrow().getUsersLikes());
+
+        assertTrue(filmStorage.removeLike(second.getId(), users.get(0)));
+        assertTrue(filmStorage.removeLike(second.getId(), users.get(1)));
+        assertFalse(filmStorage.removeLike(second.getId(), users.get(1)));
+        // при равном числе лайков фильмы идут по возрастанию id
+        assertEquals(List.of(second.getId(), third.getId()), ids(filmStorage.getPopularFilms(2)));
+    }
+
+    @Test
+    void likeBatchAppliesChangesInOrder() {
+        long a = addUser("a").getId();
+        long b = addUser("b").getId();
+        long c = addUser("c").getId();
+        Film film = filmStorage.addFilm(newFilm("film"));
+        assertTrue(filmStorage.addLike(film.getId(), a));
+
+        boolean[] changed = filmStorage.changeLikes(film.getId(), new long[]{a, b, b, b, c, a, a},
+                new boolean[]{true, true, true, false, true, false, false});
+
+        assertArrayEquals(new boolean[]{false, true, false, true, true, true, false}, changed);
+        assertEquals(Set.of(c), filmStorage.getFilm(film.getId()).orElseThrow().getUsersLikes());
+        assertEquals(1, filmStorage.getPopularFilmSummaries(1).iterator().next().likesCount());
+    }
+
+    @Test
+    void friendshipIsStoredInBothDirections() {
+        User user = addUser("user");
+        User friend = addUser("friend");
+        User other = addUser("other");
+
+        assertTrue(userStorage.addFriend(user.getId(), friend.getId()));
+        assertFalse(userStorage.addFriend(friend.getId(), user.getId()), "дружба уже существует");
+        assertTrue(userStorage.addFriend(user.getId(), other.getId()));
+
+        assertArrayEquals(new long[]{friend.getId(), other.getId()}, userStorage.getFriendIds(user.getId()));
+        assertArrayEquals(new long[]{user.getId()}, userStorage.getFriendIds(friend.getId()));
+        assertArrayEquals(new long[]{other.getId()}, userStorage.getFriendIds(user.getId(), friend.getId(), 10));
+        assertEquals(Set.of(user.getId()), userStorage.getUser(other.getId()).orElseThrow().getFriends());
+        assertArrayEquals(new long[][]{{user.getId()}, {}, {friend.getId(), other.getId()}},
+                userStorage.getFriendIds(new long[]{other.getId(), other.getId() + 1000, user.getId()}));
+
+        assertTrue(userStorage.removeFriend(friend.getId(), user.getId()));
+        assertFalse(userStorage.removeFriend(friend.getId(), user.getId()));
+        assertArrayEquals(new long[]{other.getId()}, userStorage.getFriendIds(user.getId()));
+    }
+
+    @Test
+    void updateKeepsMissingFieldsAndPagesFollowId() {
+        Film film = filmStorage.addFilm(newFilm("old"));
+        Film update = new Film(film.getId(), "new", null, null, null);
+        Film updated = filmStorage.updateFilm(update);
+
+        assertEquals("new", updated.getName());
+        assertEquals(film.getDescription(), updated.getDescription());
+        assertEquals(film.getDuration(), updated.getDuration());
+        assertNull(filmStorage.updateFilm(new Film(film.getId() + 1000, "missing", null, null, null)));
+
+        Film next = filmStorage.addFilm(newFilm("next"));
+        assertEquals(List.of(next.getId()), ids(filmStorage.getFilms(film.getId(), 10)));
+        assertEquals(List.of(film.getId()), ids(filmStorage.getFilms(0, 1)));
+    }
+
+    private User addUser(String login) {
+        return userStorage.addUser(new User(null, login + "@mail.ru", login, login, LocalDate.of(1990, 1, 1)));
+    }
+
+    private static Film newFilm(String name) {
+        return new Film(null, name, "descr", LocalDate.of(2000, 1, 1), 100);
+    }
+
+    private static List<Long> ids(Iterable<Film> films) {
+        List<Long> result = new ArrayList<>();
+        films.forEach(film -> result.add(film.getId()));
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Потоки теста должны видеть записи друг друга, поэтому тест работает без общей транзакции
+@JdbcTest(properties = "filmorate.storage=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CachingStorageTest {
+
+    private static final int READERS = 4;
+    private static final int UPDATES = 200;
+
+    @Autowired
+    private JdbcFilmStorage jdbcFilmStorage;
+
+    @Autowired
+    private JdbcUserStorage jdbcUserStorage;
+
+    private EntityCaches caches;
+    private CachingFilmStorage filmStorage;
+    private CachingUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        caches = new EntityCaches(100);
+        filmStorage = new CachingFilmStorage(jdbcFilmStorage, caches);
+        userStorage = new CachingUserStorage(jdbcUserStorage, caches);
+        filmStorage.clearData();
+        userStorage.clearData();
+    }
+
+    @Test
+    void repeatedReadsHitCacheAndWritesInvalidate() {
+        User user = userStorage.addUser(newUser("user"));
+        User friend = userStorage.addUser(newUser("friend"));
+        Film film = filmStorage.addFilm(newFilm("film"));
+
+        for (int i = 0; i < 10; i++) {
+            filmStorage.getFilm(film.getId());
+            userStorage.getUser(user.getId());
+        }
+        assertEquals(9L, caches.stats().get("films").get("hits"));
+        assertEquals(1L, caches.stats().get("films").get("misses"));
+
+        filmStorage.addLike(film.getId(), user.getId());
+        assertEquals(Set.of(user.getId()), filmStorage.getFilm(film.getId()).orElseThrow().getUsersLikes());
+
+        userStorage.addFriend(user.getId(), friend.getId());
+        assertEquals(Set.of(friend.getId()), userStorage.getUser(user.getId()).orElseThrow().getFriends());
+        assertEquals(Set.of(user.getId()), userStorage.getUser(friend.getId()).orElseThrow().getFriends());
+
+        userStorage.clearData();
+        assertEquals(Set.of(), filmStorage.getFilm(film.getId()).orElseThrow().getUsersLikes());
+    }
+
+    @Test
+    void sizeIsBounded() {
+        for (int i = 0; i < 500; i++) {
+            Film film = filmStorage.addFilm(newFilm("film" + i));
+            filmStorage.getFilm(film.getId());
+        }
+        caches.films().synchronous().cleanUp();
+        Map<String, Number> stats = caches.stats().get("films");
+        assertTrue(stats.get("size").longValue() <= 100, "размер кэша: " + stats.get("size"));
+        assertTrue(stats.get("evictions").longValue() >= 400, "вытеснено: " + stats.get("evictions"));
+    }
+
+    @Test
+    void updateIsVisibleAsSoonAsItReturns() throws Exception {
+        long filmId = filmStorage.addFilm(newFilm("v0")).getId();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (running.get()) {
+                        filmStorage.getFilm(filmId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (int i = 1; i <= UPDATES; i++) {
+                filmStorage.updateFilm(new Film(filmId, "v" + i, null, null, null));
+                assertEquals("v" + i, filmStorage.getFilm(filmId).orElseThrow().getName());
+            }
+            running.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static User newUser(String login) {
+        return new User(null, login + "@mail.ru", login, login, LocalDate.of(1990, 1, 1));
+    }
+
+    private static Film newFilm(String name) {
+        return new Film(null, name, "descr", LocalDate.of(2000, 1, 1), 100);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmSearchIndexTest {
+
+    private static final String[] WORDS = {"мир", "война", "ёж", "туман", "дом", "море", "2001", "космос", "лес"};
+
+    @Test
+    void tokenizesCyrillicText() {
+        assertEquals(List.of("ежик", "тумане", "1975", "еще"),
+                SearchTokenizer.tokens("Ёжик в тумане (1975) — ЕЩЁ!"));
+        assertEquals(List.of("9", "рота"), SearchTokenizer.tokens("9 рота"));
+    }
+
+    @Test
+    void matchesAllQueryWordsAfterUpdates() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        Map<Long, String[]> texts = new HashMap<>();
+        Random random = new Random(3);
+        for (long id = 1; id <= 2_000; id++) {
+            String[] text = {phrase(random, 2), phrase(random, 6)};
+            texts.put(id, text);
+            index.add(id, text[0], text[1], 0);
+        }
+        // обновления вставляют и удаляют id в середине списков
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(texts.size());
+            String[] old = texts.get(id);
+            String[] text = {phrase(random, 2), phrase(random, 6)};
+            index.update(id, old[0], old[1], text[0], text[1]);
+            texts.put(id, text);
+        }
+
+        for (String query : new String[]{"мир", "мир война", "ЁЖ туман дом", "2001 космос", "лес море мир"}) {
+            Set<Long> expected = new TreeSet<>();
+            texts.forEach((id, text) -> {
+                List<String> words = new ArrayList<>(SearchTokenizer.tokens(text[0]));
+                words.addAll(SearchTokenizer.tokens(text[1]));
+                if (words.containsAll(SearchTokenizer.tokens(query))) {
+                    expected.add(id);
+                }
+            });
+            Set<Long> actual = new TreeSet<>();
+            for (long id : index.search(query, texts.size(), false)) {
+                actual.add(id);
+            }
+            assertEquals(expected, actual, query);
+        }
+    }
+
+    @Test
+    void ranksByWeightThenId() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.add(1, "Дом", "", 0);
+        index.add(2, "Лес", "дом", 0);
+        index.add(3, "Дом у моря", "дом", 0);
+        index.add(4, "Лес", "", 100);
+
+        assertArrayEquals(new long[]{3, 1, 2}, index.search("дом", 10, false));
+        assertArrayEquals(new long[]{2, 4}, index.search("лес", 10, false));
+        assertArrayEquals(new long[]{4, 2}, index.search("лес", 10, true));
+        index.likesChanged(4, 0);
+        assertArrayEquals(new long[]{2}, index.search("лес", 1, true));
+        assertArrayEquals(new long[0], index.search("дом кот", 10, false));
+    }
+
+    private static String phrase(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(i % 2 == 0 ? " " : ", ");
+        }
+        return text.toString();
+    }
+}
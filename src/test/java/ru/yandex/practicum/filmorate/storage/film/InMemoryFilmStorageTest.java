@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryFilmStorageTest {
+
+    private static final int WRITERS = 64;
+    private static final int FILMS_PER_WRITER = 1_000;
+
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+    @Test
+    void concurrentAddFilmNeverReusesId() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int writerId = writer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < FILMS_PER_WRITER; i++) {
+                        Film film = storage.addFilm(newFilm("film-" + writerId + "-" + i));
+                        assertTrue(ids.add(film.getId()), "id выдан повторно: " + film.getId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int expected = WRITERS * FILMS_PER_WRITER;
+        assertEquals(expected, ids.size());
+        assertEquals(expected, storage.getFilms().size());
+        for (long id = 1; id <= expected; id++) {
+            assertTrue(storage.getFilm(id).isPresent(), "потерян фильм с id " + id);
+        }
+    }
+
+    @Test
+    void pagesDuringConcurrentAddsSkipNoIds() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int writerId = writer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < FILMS_PER_WRITER / 10; i++) {
+                        storage.addFilm(newFilm("film-" + writerId + "-" + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            // читатель идёт страницами вслед за писателями: каждая страница должна продолжать предыдущую без пропусков
+            long after = 0;
+            int expected = WRITERS * FILMS_PER_WRITER / 10;
+            while (after < expected) {
+                for (Film film : storage.getFilms(after, 100)) {
+                    assertEquals(after + 1, film.getId(), "страница пропустила id");
+                    after = film.getId();
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentUpdatesAndReadsStayConsistent() throws Exception {
+        Film film = storage.addFilm(newFilm("initial"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int writerId = writer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        Film update = new Film(film.getId(), "name-" + writerId, null, null, i + 1);
+                        storage.updateFilm(update);
+                        storage.addFilm(newFilm("extra-" + writerId + "-" + i));
+                        assertTrue(storage.getFilms().size() > 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1 + WRITERS * 500, storage.getFilms().size());
+        Film updated = storage.getFilm(film.getId()).orElseThrow();
+        assertEquals("description", updated.getDescription());
+        assertEquals(500, updated.getDuration());
+    }
+
+    @Test
+    void popularFilmsAreOrderedByLikesThenById() {
+        for (int i = 0; i < 5; i++) {
+            storage.addFilm(newFilm("film-" + i));
+        }
+        storage.addLike(4L, 1L);
+        storage.addLike(4L, 2L);
+        storage.addLike(2L, 1L);
+        storage.addLike(5L, 1L);
+        storage.addLike(3L, 1L);
+        storage.removeLike(3L, 1L);
+
+        assertEquals(List.of(4L, 2L, 5L, 1L, 3L), popularIds(10));
+        assertEquals(List.of(4L, 2L), popularIds(2));
+        assertFalse(storage.addLike(4L, 1L));
+        assertFalse(storage.removeLike(1L, 1L));
+        assertFalse(storage.addLike(100L, 1L));
+    }
+
+    @Test
+    void concurrentLikesKeepPopularityIndexConsistent() throws Exception {
+        Film hot = storage.addFilm(newFilm("hot"));
+        Film cold = storage.addFilm(newFilm("cold"));
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                long userId = writer;
+                futures.add(executor.submit(() -> {
+                    storage.addLike(hot.getId(), userId);
+                    storage.addLike(cold.getId(), userId);
+                    storage.removeLike(cold.getId(), userId);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(hot.getId(), cold.getId()), popularIds(10));
+        assertEquals(WRITERS, storage.getFilm(hot.getId()).orElseThrow().getUsersLikes().size());
+    }
+
+    @Test
+    void pagesStayStableWhileFilmsAreAdded() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            storage.addFilm(newFilm("film-" + i));
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    storage.addFilm(newFilm("late-" + i));
+                }
+            });
+            List<Long> seen = new ArrayList<>();
+            long after = 0;
+            while (after < 1_000) {
+                Collection<Film> page = storage.getFilms(after, 37);
+                for (Film film : page) {
+                    assertTrue(film.getId() > after, "страница вернула id " + film.getId() + " после " + after);
+                    seen.add(film.getId());
+                    after = film.getId();
+                }
+            }
+            writer.get();
+            for (long id = 1; id <= 1_000; id++) {
+                assertEquals(id, seen.get((int) id - 1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(5_999L, 6_000L), storage.getFilms(5_998, 10).stream().map(Film::getId).toList());
+        assertTrue(storage.getFilms(6_000, 10).isEmpty());
+    }
+
+    private List<Long> popularIds(int count) {
+        return storage.getPopularFilms(count).stream().map(Film::getId).toList();
+    }
+
+    private static Film newFilm(String name) {
+        return new Film(null, name, "description", LocalDate.of(2000, 1, 1), 100);
+    }
+}
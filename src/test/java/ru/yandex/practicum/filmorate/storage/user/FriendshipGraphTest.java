@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FriendshipGraphTest {
+
+    private final FriendshipGraph graph = new FriendshipGraph();
+
+    @Test
+    void matchesReferenceAdjacencyAcrossCompactions() {
+        Map<Long, TreeSet<Long>> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            long user = 1 + random.nextInt(500);
+            long friend = 1 + random.nextInt(500);
+            if (user == friend) {
+                continue;
+            }
+            if (random.nextInt(3) == 0) {
+                boolean existed = expected.computeIfAbsent(user, id -> new TreeSet<>()).remove(friend);
+                expected.computeIfAbsent(friend, id -> new TreeSet<>()).remove(user);
+                assertEquals(existed, graph.removeEdge(user, friend));
+            } else {
+                boolean added = expected.computeIfAbsent(user, id -> new TreeSet<>()).add(friend);
+                expected.computeIfAbsent(friend, id -> new TreeSet<>()).add(user);
+                assertEquals(added, graph.addEdge(user, friend));
+            }
+        }
+        for (long user = 0; user <= 501; user++) {
+            long[] friends = expected.getOrDefault(user, new TreeSet<>()).stream().mapToLong(Long::longValue).toArray();
+            assertArrayEquals(friends, graph.neighbors(user));
+            assertEquals(friends.length, graph.degree(user));
+            assertArrayEquals(friends, pageThrough(user, 1 + random.nextInt(40)));
+        }
+    }
+
+    @Test
+    void pagesSeeUncompactedChanges() {
+        for (long friend = 2; friend <= 2_000; friend++) {
+            graph.addEdge(1, friend);
+        }
+        graph.removeEdge(1, 1_001);
+        graph.addEdge(1, 5_000);
+
+        assertArrayEquals(new long[]{1_000, 1_002, 1_003}, graph.neighborsAfter(1, 999, 3));
+        assertArrayEquals(new long[]{2_000, 5_000}, graph.neighborsAfter(1, 1_999, 10));
+        assertArrayEquals(new long[0], graph.neighborsAfter(1, 5_000, 10));
+        assertArrayEquals(new long[]{1}, graph.neighborsAfter(1_500, 0, 10));
+    }
+
+    @Test
+    void commonNeighborsProbeLargerListWithUncompactedChanges() {
+        // у пользователя 1 тысячи друзей, у 2 и 3 — несколько, часть из них в буфере изменений
+        for (long friend = 10; friend < 3_000; friend++) {
+            graph.addEdge(1, friend);
+        }
+        for (long friend : new long[]{10, 500, 501, 2_999, 7_000}) {
+            graph.addEdge(2, friend);
+        }
+        graph.removeEdge(1, 500);
+        graph.addEdge(1, 7_000);
+        graph.addEdge(3, 4);
+
+        assertArrayEquals(new long[]{10, 501, 2_999, 7_000}, graph.commonNeighbors(1, 2));
+        assertArrayEquals(new long[]{10, 501, 2_999, 7_000}, graph.commonNeighbors(2, 1));
+        assertArrayEquals(new long[0], graph.commonNeighbors(1, 3));
+        assertArrayEquals(new long[0], graph.commonNeighbors(1, 4_000));
+        // списки сравнимого размера пересекаются целиком
+        assertArrayEquals(new long[]{1, 2}, graph.commonNeighbors(10, 501));
+    }
+
+    @Test
+    void concurrentAddsAreVisibleInBothDirections() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long user = 1; user <= 16; user++) {
+                long userId = user;
+                futures.add(executor.submit(() -> {
+                    for (long friend = 100; friend < 2_100; friend++) {
+                        graph.addEdge(userId, friend);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long friend = 100; friend < 2_100; friend++) {
+            assertEquals(16, graph.degree(friend));
+            assertTrue(graph.hasEdge(friend, 1));
+        }
+        assertEquals(2_000, graph.neighbors(1).length);
+        assertFalse(graph.addEdge(2_099, 16));
+    }
+
+    private long[] pageThrough(long user, int limit) {
+        List<Long> result = new ArrayList<>();
+        long after = 0;
+        long[] page;
+        do {
+            page = graph.neighborsAfter(user, after, limit);
+            for (long friend : page) {
+                result.add(friend);
+                after = friend;
+            }
+        } while (page.length == limit);
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotStoreTest {
+
+    private static final int USERS = 300;
+    private static final int FILMS = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotAndTailRestoreSameState() throws IOException {
+        Path walPath = dir.resolve("filmorate.wal");
+        SnapshotStore store = new SnapshotStore(dir.resolve("filmorate.snapshot"));
+        InMemoryFilmStorage films;
+        InMemoryUserStorage users;
+        try (WriteAheadLog wal = new WriteAheadLog(walPath)) {
+            wal.replay(record -> {
+            });
+            films = new InMemoryFilmStorage(wal);
+            users = new InMemoryUserStorage(wal);
+            fill(films, users, new SplittableRandom(1), 5_000);
+            store.write(wal.lastLsn(), List.of(users, films));
+            mutate(films, users, new SplittableRandom(2), 2_000);
+        }
+
+        assertSameState(films, users, restore(walPath, store, true));
+        assertSameState(films, users, restore(walPath, store, false));
+    }
+
+    @Test
+    void fuzzySnapshotTakenDuringWritesConverges() throws Exception {
+        Path walPath = dir.resolve("fuzzy.wal");
+        SnapshotStore store = new SnapshotStore(dir.resolve("fuzzy.snapshot"));
+        InMemoryFilmStorage films;
+        InMemoryUserStorage users;
+        try (WriteAheadLog wal = new WriteAheadLog(walPath)) {
+            wal.replay(record -> {
+            });
+            films = new InMemoryFilmStorage(wal);
+            users = new InMemoryUserStorage(wal);
+            fill(films, users, new SplittableRandom(3), 3_000);
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch started = new CountDownLatch(4);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int writer = 0; writer < 4; writer++) {
+                    SplittableRandom random = new SplittableRandom(10 + writer);
+                    futures.add(executor.submit(() -> {
+                        started.countDown();
+                        while (running.get()) {
+                            mutate(films, users, random, 50);
+                        }
+                        return null;
+                    }));
+                }
+                started.await();
+                for (int i = 0; i < 5; i++) {
+                    long lsn = wal.lastLsn();
+                    wal.awaitDurable(lsn);
+                    store.write(lsn, List.of(films, users));
+                }
+                running.set(false);
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        assertSameState(films, users, restore(walPath, store, true));
+    }
+
+    @Test
+    void corruptedSnapshotIsIgnored() throws IOException {
+        Path snapshotPath = dir.resolve("broken.snapshot");
+        SnapshotStore store = new SnapshotStore(snapshotPath);
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        fill(films, users, new SplittableRandom(4), 100);
+        store.write(42, List.of(films, users));
+
+        OptionalLong lsn = store.load(List.of(new InMemoryFilmStorage(), new InMemoryUserStorage()));
+        assertEquals(OptionalLong.of(42), lsn);
+
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshotPath, bytes);
+        assertTrue(store.load(List.of(new InMemoryFilmStorage(), new InMemoryUserStorage())).isEmpty());
+    }
+
+    private static Restored restore(Path walPath, SnapshotStore store, boolean useSnapshot) throws IOException {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        long from = useSnapshot ? store.load(List.of(films, users)).orElseThrow() : 0;
+        try (WriteAheadLog wal = new WriteAheadLog(walPath)) {
+            wal.replay(from, record -> {
+                films.replay(record);
+                users.replay(record);
+            });
+        }
+        return new Restored(films, users);
+    }
+
+    private static void fill(InMemoryFilmStorage films, InMemoryUserStorage users, SplittableRandom random,
+                             int mutations) {
+        for (int i = 1; i <= USERS; i++) {
+            users.addUser(new User(null, "user" + i + "@mail.ru", "login" + i, i % 7 == 0 ? null : "Имя " + i,
+                    i % 5 == 0 ? null : LocalDate.of(1980, 1, 1).plusDays(i)));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            films.addFilm(new Film(null, "Фильм " + i, i % 3 == 0 ? null : "описание " + i,
+                    LocalDate.of(1990, 1, 1).plusDays(i), i % 4 == 0 ? null : 60 + i));
+        }
+        // у первого фильма лайки всех пользователей, чтобы в снимок попало и большое множество
+        for (long user = 1; user <= USERS; user++) {
+            films.addLike(1L, user);
+        }
+        mutate(films, users, random, mutations);
+    }
+
+    private static void mutate(InMemoryFilmStorage films, InMemoryUserStorage users, SplittableRandom random,
+                               int mutations) {
+        for (int i = 0; i < mutations; i++) {
+            long film = 1 + random.nextInt(FILMS);
+            long user = 1 + random.nextInt(USERS);
+            long friend = 1 + random.nextInt(USERS);
+            switch (random.nextInt(6)) {
+                case 0 -> films.addLike(film, user);
+                case 1 -> films.removeLike(film, user);
+                case 2 -> users.addFriend(user, friend);
+                case 3 -> users.removeFriend(user, friend);
+                case 4 -> films.updateFilm(new Film(film, "Фильм " + film + " v" + i, null, null, 1 + i));
+                default -> users.updateUser(new User(user, null, "login" + user + "v" + i, "Имя", null));
+            }
+        }
+    }
+
+    private static void assertSameState(InMemoryFilmStorage films, InMemoryUserStorage users, Restored restored) {
+        assertEquals(films.getFilms().size(), restored.films().getFilms().size());
+        for (Film film : films.getFilms()) {
+            Film other = restored.films().getFilm(film.getId()).orElseThrow();
+            assertEquals(film.getName(), other.getName());
+            assertEquals(film.getDescription(), other.getDescription());
+            assertEquals(film.getReleaseDate(), other.getReleaseDate());
+            assertEquals(film.getDuration(), other.getDuration());
+            assertArrayEquals(film.getUsersLikes().toLongArray(), other.getUsersLikes().toLongArray());
+        }
+        assertEquals(ids(films.getPopularFilms(FILMS)), ids(restored.films().getPopularFilms(FILMS)));
+        assertEquals(users.getUsers().size(), restored.users().getUsers().size());
+        for (User user : users.getUsers()) {
+            User other = restored.users().getUser(user.getId()).orElseThrow();
+            assertEquals(user.getEmail(), other.getEmail());
+            assertEquals(user.getLogin(), other.getLogin());
+            assertEquals(user.getName(), other.getName());
+            assertEquals(user.getBirthday(), other.getBirthday());
+            assertArrayEquals(users.getFriendIds(user.getId()), restored.users().getFriendIds(user.getId()));
+        }
+    }
+
+    private static List<Long> ids(Collection<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private record Restored(InMemoryFilmStorage films, InMemoryUserStorage users) {
+    }
+}
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import jdk.jfr.consumer.RecordingStream;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storagesAreRestoredFromLog() throws IOException {
+        Path path = dir.resolve("filmorate.wal");
+        try (WriteAheadLog wal = open(path, new ArrayList<>())) {
+            InMemoryFilmStorage films = new InMemoryFilmStorage(wal);
+            InMemoryUserStorage users = new InMemoryUserStorage(wal);
+            for (int i = 1; i <= 3; i++) {
+                users.addUser(new User(null, "user" + i + "@mail.ru", "login" + i, "Имя " + i, null));
+                films.addFilm(new Film(null, "Фильм " + i, null, LocalDate.of(2000, 1, i), 90 + i));
+            }
+            films.updateFilm(new Film(2L, "Новое название", "описание", null, null));
+            users.updateUser(new User(3L, null, "renamed", "Другое имя", LocalDate.of(1990, 5, 5)));
+            films.addLike(1L, 1L);
+            films.addLike(1L, 2L);
+            films.addLike(3L, 2L);
+            films.removeLike(1L, 1L);
+            users.addFriend(1L, 2L);
+            users.addFriend(1L, 3L);
+            users.removeFriend(1L, 2L);
+        }
+
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        try (WriteAheadLog wal = new WriteAheadLog(path)) {
+            assertEquals(15, wal.replay(record -> {
+                films.replay(record);
+                users.replay(record);
+            }));
+        }
+
+        Film film = films.getFilm(2L).orElseThrow();
+        assertEquals("Новое название", film.getName());
+        assertEquals("описание", film.getDescription());
+        assertEquals(LocalDate.of(2000, 1, 2), film.getReleaseDate());
+        assertArrayEquals(new long[]{2}, films.getFilm(1L).orElseThrow().getUsersLikes().toLongArray());
+        assertEquals(List.of(1L, 3L, 2L), films.getPopularFilms(3).stream().map(Film::getId).toList());
+        User user = users.getUser(3L).orElseThrow();
+        assertEquals("renamed", user.getLogin());
+        assertEquals("user3@mail.ru", user.getEmail());
+        assertArrayEquals(new long[]{3}, users.getFriendIds(1L));
+        assertArrayEquals(new long[]{1}, users.getFriendIds(3L));
+        assertEquals(4L, films.addFilm(new Film(null, "после восстановления", null, null, 1)).getId());
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path path = dir.resolve("torn.wal");
+        long validSize;
+        try (WriteAheadLog wal = open(path, new ArrayList<>())) {
+            wal.awaitDurable(wal.append(new WalRecord.LikeAdded(1, 2)));
+            validSize = wal.append(new WalRecord.FriendAdded(3, 4));
+            wal.awaitDurable(validSize);
+        }
+        // обрыв на середине следующей записи: заголовок обещает 40 байт, а дописано только 3
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 5, 6, 7}));
+        }
+
+        List<WalRecord> records = new ArrayList<>();
+        try (WriteAheadLog wal = open(path, records)) {
+            assertEquals(List.of(new WalRecord.LikeAdded(1, 2), new WalRecord.FriendAdded(3, 4)), records);
+            assertEquals(validSize, Files.size(path));
+            wal.awaitDurable(wal.append(new WalRecord.LikeRemoved(1, 2)));
+        }
+
+        records.clear();
+        try (WriteAheadLog ignored = open(path, records)) {
+            assertEquals(3, records.size());
+            assertEquals(new WalRecord.LikeRemoved(1, 2), records.get(2));
+        }
+    }
+
+    @Test
+    void corruptedRecordEndsReplay() throws IOException {
+        Path path = dir.resolve("corrupted.wal");
+        try (WriteAheadLog wal = open(path, new ArrayList<>())) {
+            wal.append(new WalRecord.LikeAdded(1, 2));
+            wal.awaitDurable(wal.append(new WalRecord.LikeAdded(3, 4)));
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        List<WalRecord> records = new ArrayList<>();
+        try (WriteAheadLog ignored = open(path, records)) {
+            assertEquals(List.of(new WalRecord.LikeAdded(1, 2)), records);
+        }
+    }
+
+    @Test
+    void concurrentWritersShareFsyncs() throws Exception {
+        int writers = 32;
+        int recordsPerWriter = 200;
+        try (WriteAheadLog wal = open(dir.resolve("group.wal"), new ArrayList<>())) {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int writer = 0; writer < writers; writer++) {
+                    long userId = writer;
+                    futures.add(executor.submit(() -> {
+                        for (long film = 0; film < recordsPerWriter; film++) {
+                            wal.awaitDurable(wal.append(new WalRecord.LikeAdded(film, userId)));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertTrue(wal.syncCount() < writers * recordsPerWriter, "fsync на каждую запись: " + wal.syncCount());
+        }
+    }
+
+    @Test
+    void appendRequiresReplay() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(dir.resolve("fresh.wal"))) {
+            assertThrows(IllegalStateException.class, () -> wal.append(new WalRecord.FilmsCleared()));
+        }
+    }
+
+    // Виртуальный поток, заснувший внутри synchronized (в том числе внутри ConcurrentHashMap.compute),
+    // держит поток-носитель; JFR сообщает о таком событием jdk.VirtualThreadPinned
+    @Test
+    void logWritesDoNotPinVirtualThreads() throws Exception {
+        LongAdder pinned = new LongAdder();
+        try (WriteAheadLog wal = open(dir.resolve("filmorate.wal"), new ArrayList<>());
+             RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withoutThreshold();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.increment());
+            recording.startAsync();
+
+            InMemoryFilmStorage films = new InMemoryFilmStorage(wal);
+            InMemoryUserStorage users = new InMemoryUserStorage(wal);
+            long filmId = films.addFilm(new Film(null, "Фильм", null, LocalDate.of(2000, 1, 1), 90)).getId();
+            long userId = users.addUser(new User(null, "user@mail.ru", "login", "Имя", null)).getId();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (long i = 1; i <= 500; i++) {
+                    long liker = i;
+                    executor.submit(() -> films.addLike(filmId, liker));
+                    executor.submit(() -> users.updateUser(new User(userId, null, "login" + liker, "Имя", null)));
+                    executor.submit(() -> films.updateFilm(new Film(filmId, "Фильм " + liker, null, null, null)));
+                }
+            }
+            recording.stop();
+        }
+        assertEquals(0, pinned.sum());
+    }
+
+    private static WriteAheadLog open(Path path, List<WalRecord> records) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(path);
+        wal.replay(records::add);
+        return wal;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactLongSetTest {
+
+    private static final int BLOCK_SHIFT = 20;
+
+    @Test
+    void behavesLikeTreeSetForRandomOperations() {
+        Random random = new Random(42);
+        // разные диапазоны, чтобы пройти через массив, куски, разреженные блоки и битовые карты
+        for (long range : new long[]{100, 10_000, 300_000, 5_000_000, 1L << 40}) {
+            CompactLongSet set = new CompactLongSet();
+            TreeSet<Long> expected = new TreeSet<>();
+            for (int i = 0; i < 60_000; i++) {
+                long value = random.nextLong(range);
+                if (random.nextInt(4) == 0) {
+                    assertEquals(expected.remove(value), set.remove(value));
+                } else {
+                    assertEquals(expected.add(value), set.add(value));
+                }
+            }
+            assertEquals(expected.size(), set.size());
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.toLongArray());
+            for (int i = 0; i < 1_000; i++) {
+                long value = random.nextLong(range);
+                assertEquals(expected.contains(value), set.contains(value));
+            }
+            for (Long value : new ArrayList<>(expected)) {
+                assertTrue(set.remove(value.longValue()));
+            }
+            assertTrue(set.isEmpty());
+        }
+    }
+
+    @Test
+    void batchChangesMatchOneByOne() {
+        Random random = new Random(7);
+        for (long range : new long[]{100, 300_000, 5_000_000, 1L << 40}) {
+            CompactLongSet set = new CompactLongSet();
+            TreeSet<Long> expected = new TreeSet<>();
+            for (int round = 0; round < 300; round++) {
+                // и пачки, сравнимые с размером множества, и единичные изменения большого множества
+                int size = round % 3 == 0 ? 1 + random.nextInt(2_000) : 1 + random.nextInt(4);
+                long[] values = new long[size];
+                boolean[] add = new boolean[size];
+                boolean[] changed = new boolean[size];
+                for (int i = 0; i < size; i++) {
+                    // повторы внутри пачки применяются по порядку
+                    values[i] = i > 0 && random.nextInt(8) == 0 ? values[i - 1] : random.nextLong(range);
+                    add[i] = random.nextInt(3) > 0;
+                    changed[i] = add[i] ? expected.add(values[i]) : expected.remove(values[i]);
+                }
+                assertArrayEquals(changed, set.change(values, add));
+            }
+            assertEquals(expected.size(), set.size());
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.toLongArray());
+        }
+    }
+
+    @Test
+    void scatteredValuesDoNotCopyWholeSetOnEachAdd() {
+        CompactLongSet set = new CompactLongSet();
+        // каждое значение в своём блоке: целым массивом это квадратичное число копирований
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (long i = 0; i < 300_000; i++) {
+                set.add(i << BLOCK_SHIFT);
+            }
+        });
+        assertEquals(300_000, set.size());
+        assertTrue(set.contains(12_345L << BLOCK_SHIFT));
+        assertFalse(set.contains((12_345L << BLOCK_SHIFT) + 1));
+        // плотный диапазон поверх разбросанных значений
+        for (long value = 1; value < 70_000; value++) {
+            set.add(value);
+        }
+        assertEquals(300_000 + 69_999, set.size());
+        assertTrue(set.contains(69_999L));
+    }
+
+    @Test
+    void denseBlockSwitchesToBitmapAndBack() {
+        CompactLongSet set = new CompactLongSet();
+        for (long value = 0; value < 70_000; value++) {
+            set.add(value);
+        }
+        assertEquals(70_000, set.size());
+        assertTrue(set.contains(65_535L));
+        assertFalse(set.contains(70_000L));
+        for (long value = 0; value < 70_000; value += 2) {
+            set.remove(value);
+        }
+        assertEquals(35_000, set.size());
+        assertFalse(set.contains(0L));
+        assertTrue(set.contains(69_999L));
+    }
+
+    @Test
+    void filmLikesKeepJsonContract() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = new Film(1L, "name", "description", LocalDate.of(2000, 1, 1), 100);
+        film.getUsersLikes().add(3L);
+        film.getUsersLikes().add(1L);
+
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.contains("\"usersLikes\":[1,3]"), json);
+
+        Film restored = mapper.readValue(json, Film.class);
+        assertEquals(List.of(1L, 3L), new ArrayList<>(restored.getUsersLikes()));
+    }
+}
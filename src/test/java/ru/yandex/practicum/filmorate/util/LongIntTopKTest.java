@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntTopKTest {
+
+    @Test
+    void countsAndSelectsLikeSortingEverything() {
+        Random random = new Random(7);
+        LongIntHashMap counts = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(50_000);
+            counts.add(key, 1);
+            expected.merge(key, 1, Integer::sum);
+        }
+        assertEquals(expected.size(), counts.size());
+        expected.forEach((key, value) -> assertEquals(value, counts.get(key)));
+        assertEquals(0, counts.get(50_001));
+
+        for (int k : new int[]{1, 10, 1_000, 100_000}) {
+            LongIntTopK top = new LongIntTopK(k);
+            counts.forEach(top::offer);
+            int[] values = new int[top.size()];
+            long[] keys = top.drain(values);
+
+            List<Map.Entry<Long, Integer>> sorted = expected.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(k)
+                    .toList();
+            assertArrayEquals(sorted.stream().mapToLong(Map.Entry::getKey).toArray(), keys);
+            assertArrayEquals(sorted.stream().mapToInt(Map.Entry::getValue).toArray(), values);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class LongIntersectionTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    void allStrategiesMatchNaiveIntersection() {
+        int[][] sizes = {{0, 10}, {1, 1}, {10, 100_000}, {1_000, 1_000}, {5_000, 20_000}, {3, 200}};
+        for (int[] size : sizes) {
+            for (long range : new long[]{50_000, 10_000_000}) {
+                long[] first = randomSorted(size[0], range);
+                long[] second = randomSorted(size[1], range);
+                long[] expected = LongStream.of(first).filter(value -> SortedLongArrays.contains(second, value)).toArray();
+
+                assertArrayEquals(expected, LongIntersection.intersect(first, second));
+                assertArrayEquals(expected, LongIntersection.intersect(second, first));
+                assertArrayEquals(expected, LongIntersection.merge(first, second));
+                if (first.length > 0 && second.length > 0) {
+                    long[] small = first.length <= second.length ? first : second;
+                    long[] large = small == first ? second : first;
+                    assertArrayEquals(expected, LongIntersection.gallop(small, large));
+                    long from = Math.min(first[0], second[0]);
+                    long to = Math.max(first[first.length - 1], second[second.length - 1]);
+                    assertArrayEquals(expected, LongIntersection.bitmapAnd(first, second, from, to));
+                }
+            }
+        }
+    }
+
+    private long[] randomSorted(int size, long range) {
+        return random.longs(size * 2L, 1, range).distinct().limit(size).sorted().toArray();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SequencedRingTest {
+
+    @Test
+    void keepsLastCapacityValues() {
+        SequencedRing<String> ring = new SequencedRing<>(5);
+        assertEquals(8, ring.capacity());
+        assertEquals(0, ring.last());
+        assertNull(ring.get(1));
+
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, ring.publish(sequence -> "e" + sequence));
+        }
+
+        assertEquals(20, ring.last());
+        assertEquals(13, ring.first());
+        assertNull(ring.get(12));
+        for (long sequence = 13; sequence <= 20; sequence++) {
+            assertEquals("e" + sequence, ring.get(sequence));
+        }
+        assertNull(ring.get(21));
+    }
+
+    @Test
+    void concurrentWritersGetDistinctSequences() throws InterruptedException {
+        int writers = 4;
+        int perWriter = 10_000;
+        SequencedRing<Long> ring = new SequencedRing<>(writers * perWriter);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    ring.publish(sequence -> sequence * 10);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals((long) writers * perWriter, ring.last());
+        for (long sequence = 1; sequence <= ring.last(); sequence++) {
+            assertEquals(sequence * 10, ring.get(sequence));
+        }
+    }
+}